@@ -1,54 +1,94 @@
 package br.com.openfinance.accounts.application.dto;
 
+import br.com.openfinance.core.processor.ItemOutcome;
+import br.com.openfinance.core.processor.OutcomeStats;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Agregados de tamanho fixo: contadores LongAdder e um histograma HDR por conta, em vez de guardar
+// cada lote. Pode ser atualizado de vários callbacks reativos ao mesmo tempo e combinado com merge()
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
 public class AccountUpdateResult {
 
-    private String executionId;
+    // Latência por conta em microssegundos, até 10 minutos, com 2 dígitos significativos (~1% de erro)
+    private static final long MAX_TRACKABLE_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
 
-    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
-    @Builder.Default
-    private LocalDateTime startTime = LocalDateTime.now();
+    @ToString.Include
+    private final String executionId;
 
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
-    private LocalDateTime endTime;
-
-    private Duration duration;
-
-    private int totalProcessed;
-    private int totalSuccess;
-    private int totalErrors;
-    private int totalSkipped;
-
-    @Builder.Default
-    private List<BatchResult> batchResults = new ArrayList<>();
+    private final LocalDateTime startTime;
 
-    @Builder.Default
-    private Map<String, Integer> errorsByType = new HashMap<>();
-
-    @Builder.Default
-    private Map<String, Integer> processingByInstitution = new HashMap<>();
-
-    private ExecutionStatus status;
-    private String message;
-
-    @Builder.Default
-    private PerformanceMetrics performanceMetrics = new PerformanceMetrics();
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+    private volatile LocalDateTime endTime;
+
+    @ToString.Include
+    private volatile Duration duration;
+
+    @ToString.Include
+    private volatile ExecutionStatus status;
+    private volatile String message;
+
+    private final PerformanceMetrics performanceMetrics = new PerformanceMetrics();
+
+    @Getter(AccessLevel.NONE)
+    private final LongAdder success = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder errors = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder skipped = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder batches = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder batchProcessingTimeMs = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, LongAdder> institutionCounts = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Histogram accountLatencies =
+            new ConcurrentHistogram(MAX_TRACKABLE_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+    @Getter(AccessLevel.NONE)
+    private final OutcomeStats<String> institutionStats = new OutcomeStats<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, BatchResult> activeBatches = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger inFlight = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final long startNanos = System.nanoTime();
+
+    // Contas devidas nos shards que este pod pegou, contadas ao pegar cada shard. O ETA sai daqui,
+    // e não do total do cluster, porque o throughput medido é só deste pod
+    @Getter(AccessLevel.NONE)
+    private final LongAdder claimedTotal = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private volatile boolean claimedCounted;
+    @Getter(AccessLevel.NONE)
+    private volatile boolean claimedCountFailed;
+
+    public AccountUpdateResult(String executionId, LocalDateTime startTime) {
+        this.executionId = executionId;
+        this.startTime = startTime;
+    }
 
     public enum ExecutionStatus {
         COMPLETED,
@@ -58,27 +98,75 @@ public class AccountUpdateResult {
         IN_PROGRESS
     }
 
-    @Data
-    @Builder
-    @NoArgsConstructor
-    @AllArgsConstructor
+    // Contadores do próprio lote: os callbacks paralelos do lote só tocam aqui,
+    // e o total da execução recebe o lote inteiro em addBatchResult
+    @Getter
+    @ToString
     public static class BatchResult {
-        private int batchNumber;
-        private int batchSize;
-        private int successCount;
-        private int errorCount;
-        private long processingTimeMs;
-        private LocalDateTime processedAt;
+        private final int batchNumber;
+        private final int batchSize;
+        @Getter(AccessLevel.NONE)
+        @ToString.Exclude
+        private final long startNanos = System.nanoTime();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger successCount = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger errorCount = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger skippedCount = new AtomicInteger();
+        private volatile long processingTimeMs;
+        private volatile LocalDateTime processedAt;
+
+        public BatchResult(int batchNumber, int batchSize) {
+            this.batchNumber = batchNumber;
+            this.batchSize = batchSize;
+        }
+
+        public int getSuccessCount() {
+            return successCount.get();
+        }
+
+        public int getErrorCount() {
+            return errorCount.get();
+        }
+
+        public int getSkippedCount() {
+            return skippedCount.get();
+        }
 
         public void incrementSuccess() {
-            this.successCount++;
+            successCount.incrementAndGet();
         }
 
         public void incrementError() {
-            this.errorCount++;
+            errorCount.incrementAndGet();
+        }
+
+        public void incrementSkipped() {
+            skippedCount.incrementAndGet();
+        }
+
+        public BatchResult finish() {
+            this.processingTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            this.processedAt = LocalDateTime.now();
+            return this;
         }
     }
 
+    // Visão ao vivo da execução neste pod. claimedTotal e eta cobrem só os shards que o pod já
+    // pegou (os seguintes ainda não têm dono); ficam null se algum shard não pôde ser contado
+    public record Progress(
+            long processed,
+            long success,
+            long errors,
+            int inFlight,
+            int activeBatches,
+            long completedBatches,
+            double throughputPerSecond,
+            Long claimedTotal,
+            Duration eta) {
+    }
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -88,31 +176,151 @@ public class AccountUpdateResult {
         private double p50ProcessingTimeMs;
         private double p95ProcessingTimeMs;
         private double p99ProcessingTimeMs;
+        private double maxProcessingTimeMs;
+        private double averageBatchTimeMs;
         private double throughputPerSecond;
         private long peakMemoryUsageMb;
         private double averageCpuUsage;
     }
 
+    @ToString.Include
+    public long getTotalProcessed() {
+        return getTotalSuccess() + getTotalErrors() + getTotalSkipped();
+    }
+
+    public long getTotalSuccess() {
+        return success.sum();
+    }
+
+    @ToString.Include
+    public long getTotalErrors() {
+        return errors.sum();
+    }
+
+    public long getTotalSkipped() {
+        return skipped.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public Map<String, Long> getErrorsByType() {
+        return snapshot(errorCounts);
+    }
+
+    public Map<String, Long> getProcessingByInstitution() {
+        return snapshot(institutionCounts);
+    }
+
+    public BatchResult startBatch(int batchNumber, int batchSize) {
+        BatchResult batch = new BatchResult(batchNumber, batchSize);
+        activeBatches.put(batchNumber, batch);
+        return batch;
+    }
+
+    public void accountStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void accountFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    // Sem lock: cada contador é um LongAdder e o lote sai dos ativos só depois de somado
     public void addBatchResult(BatchResult batchResult) {
-        this.batchResults.add(batchResult);
-        this.totalSuccess += batchResult.getSuccessCount();
-        this.totalErrors += batchResult.getErrorCount();
+        batches.increment();
+        batchProcessingTimeMs.add(batchResult.getProcessingTimeMs());
+        success.add(batchResult.getSuccessCount());
+        errors.add(batchResult.getErrorCount());
+        skipped.add(batchResult.getSkippedCount());
+        activeBatches.remove(batchResult.getBatchNumber(), batchResult);
+    }
+
+    public Progress getProgress() {
+        long success = this.success.sum();
+        long errors = this.errors.sum();
+        long skipped = this.skipped.sum();
+        for (BatchResult batch : activeBatches.values()) {
+            success += batch.getSuccessCount();
+            errors += batch.getErrorCount();
+            skipped += batch.getSkippedCount();
+        }
+        long processed = success + errors + skipped;
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        double throughput = elapsedNanos > 0 ? processed * 1e9 / elapsedNanos : 0.0;
+
+        Long claimed = claimedCounted && !claimedCountFailed ? claimedTotal.sum() : null;
+        Duration eta = null;
+        if (claimed != null && throughput > 0) {
+            long remaining = Math.max(claimed - processed, 0);
+            eta = Duration.ofSeconds((long) Math.ceil(remaining / throughput));
+        }
+
+        return new Progress(processed, success, errors, inFlight.get(), activeBatches.size(),
+                batches.sum(), throughput, claimed, eta);
+    }
+
+    // Contas devidas no shard recém-pego; ao fim do shard entra a diferença para o que foi varrido
+    public void addClaimed(long accounts) {
+        claimedTotal.add(accounts);
+        claimedCounted = true;
+    }
+
+    public void claimedCountFailed() {
+        claimedCountFailed = true;
+    }
+
+    // Cada tentativa de atualização, inclusive as que vão para retry
+    public void recordOutcome(String institutionId, ItemOutcome<?, ?> outcome) {
+        institutionStats.record(institutionId, outcome);
+        if (outcome.isSuccess()) {
+            recordAccountLatency(outcome.latencyMillis());
+            incrementInstitutionCount(institutionId);
+        }
+    }
+
+    public Map<String, OutcomeStats.Snapshot> getInstitutionStats() {
+        return institutionStats.snapshot();
+    }
+
+    public void recordAccountLatency(long latencyMs) {
+        long micros = TimeUnit.MILLISECONDS.toMicros(Math.max(latencyMs, 0));
+        accountLatencies.recordValue(Math.min(micros, MAX_TRACKABLE_LATENCY_MICROS));
     }
 
     public void incrementErrorType(String errorType) {
-        this.errorsByType.merge(errorType, 1, Integer::sum);
+        increment(errorCounts, errorType);
     }
 
     public void incrementInstitutionCount(String institutionId) {
-        this.processingByInstitution.merge(institutionId, 1, Integer::sum);
+        increment(institutionCounts, institutionId);
+    }
+
+    // Combina resultados parciais (por shard, por pod) sem perder a precisão dos percentis;
+    // pode rodar junto com gravações, mas não com outro merge no mesmo destino
+    public void merge(AccountUpdateResult other) {
+        success.add(other.success.sum());
+        errors.add(other.errors.sum());
+        skipped.add(other.skipped.sum());
+        batches.add(other.batches.sum());
+        batchProcessingTimeMs.add(other.batchProcessingTimeMs.sum());
+        other.errorCounts.forEach((type, count) -> errorCounts
+                .computeIfAbsent(type, k -> new LongAdder()).add(count.sum()));
+        other.institutionCounts.forEach((institution, count) -> institutionCounts
+                .computeIfAbsent(institution, k -> new LongAdder()).add(count.sum()));
+        accountLatencies.add(other.accountLatencies);
+        institutionStats.merge(other.institutionStats);
     }
 
     public void complete() {
         this.endTime = LocalDateTime.now();
         this.duration = Duration.between(this.startTime, this.endTime);
-        this.totalProcessed = this.totalSuccess + this.totalErrors + this.totalSkipped;
+        long totalProcessed = getTotalProcessed();
+        long totalErrors = getTotalErrors();
 
-        if (this.totalErrors == 0) {
+        if (totalErrors == 0) {
             this.status = ExecutionStatus.COMPLETED;
             this.message = String.format("Successfully processed %d accounts in %s",
                     totalProcessed, formatDuration(duration));
@@ -133,39 +341,41 @@ public class AccountUpdateResult {
     }
 
     private void calculatePerformanceMetrics() {
-        if (batchResults.isEmpty()) {
-            return;
+        long batchCount = batches.sum();
+        if (batchCount > 0) {
+            performanceMetrics.setAverageBatchTimeMs((double) batchProcessingTimeMs.sum() / batchCount);
         }
 
-        List<Long> processingTimes = batchResults.stream()
-                .map(BatchResult::getProcessingTimeMs)
-                .sorted()
-                .toList();
-
-        double average = processingTimes.stream()
-                .mapToLong(Long::longValue)
-                .average()
-                .orElse(0.0);
-
-        performanceMetrics.setAverageProcessingTimeMs(average);
-        performanceMetrics.setP50ProcessingTimeMs(getPercentile(processingTimes, 50));
-        performanceMetrics.setP95ProcessingTimeMs(getPercentile(processingTimes, 95));
-        performanceMetrics.setP99ProcessingTimeMs(getPercentile(processingTimes, 99));
+        Histogram latencies = accountLatencies.copy();
+        if (latencies.getTotalCount() > 0) {
+            performanceMetrics.setAverageProcessingTimeMs(toMillis(latencies.getMean()));
+            performanceMetrics.setP50ProcessingTimeMs(toMillis(latencies.getValueAtPercentile(50)));
+            performanceMetrics.setP95ProcessingTimeMs(toMillis(latencies.getValueAtPercentile(95)));
+            performanceMetrics.setP99ProcessingTimeMs(toMillis(latencies.getValueAtPercentile(99)));
+            performanceMetrics.setMaxProcessingTimeMs(toMillis(latencies.getMaxValue()));
+        }
 
-        if (duration != null && duration.toSeconds() > 0) {
-            performanceMetrics.setThroughputPerSecond(
-                    (double) totalProcessed / duration.toSeconds()
-            );
+        if (duration != null && duration.toMillis() > 0) {
+            performanceMetrics.setThroughputPerSecond(getTotalProcessed() * 1000.0 / duration.toMillis());
         }
     }
 
-    private double getPercentile(List<Long> sortedValues, int percentile) {
-        if (sortedValues.isEmpty()) {
-            return 0.0;
+    private static double toMillis(double micros) {
+        return micros / 1000.0;
+    }
+
+    private static void increment(Map<String, LongAdder> counts, String key) {
+        LongAdder counter = counts.get(key);
+        if (counter == null) {
+            counter = counts.computeIfAbsent(key, k -> new LongAdder());
         }
+        counter.increment();
+    }
 
-        int index = (int) Math.ceil(percentile / 100.0 * sortedValues.size()) - 1;
-        return sortedValues.get(Math.max(0, Math.min(index, sortedValues.size() - 1)));
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counts) {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((key, count) -> snapshot.put(key, count.sum()));
+        return snapshot;
     }
 
     private String formatDuration(Duration duration) {
@@ -182,11 +392,15 @@ public class AccountUpdateResult {
         }
     }
 
+    public static AccountUpdateResult start(String executionId) {
+        AccountUpdateResult result = new AccountUpdateResult(executionId, LocalDateTime.now());
+        result.status = ExecutionStatus.IN_PROGRESS;
+        return result;
+    }
+
     public static AccountUpdateResult inProgress(String executionId) {
-        return AccountUpdateResult.builder()
-                .executionId(executionId)
-                .status(ExecutionStatus.IN_PROGRESS)
-                .message("Update in progress...")
-                .build();
+        AccountUpdateResult result = start(executionId);
+        result.message = "Update in progress...";
+        return result;
     }
 }
@@ -0,0 +1,38 @@
+package br.com.openfinance.accounts.application.event;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ConsentUpdateEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String AUTHORISED = "AUTHORISED";
+
+    private String eventId;
+    private String consentId;
+    private String clientId;
+    private String institutionId;
+
+    // Status do consentimento no Open Finance: AWAITING_AUTHORISATION, AUTHORISED, REJECTED...
+    private String status;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+    private LocalDateTime timestamp;
+
+    public boolean isAuthorised() {
+        return AUTHORISED.equals(status);
+    }
+}
@@ -4,6 +4,7 @@ import br.com.openfinance.accounts.application.service.AccountUpdateOrchestrator
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -12,6 +13,9 @@ import org.springframework.context.annotation.Configuration;
 @RequiredArgsConstructor
 public class AccountUpdateScheduler {
 
+    @Value("${openfinance.accounts.update.interval:12}")
+    private int intervalHours;
+
     @Bean
     public JobDetail accountUpdateJobDetail() {
         return JobBuilder.newJob(AccountUpdateJob.class)
@@ -26,7 +30,7 @@ public class AccountUpdateScheduler {
                 .forJob(accountUpdateJobDetail)
                 .withIdentity("accountUpdateTrigger")
                 .withSchedule(SimpleScheduleBuilder.simpleSchedule()
-                        .withIntervalInHours(12)
+                        .withIntervalInHours(intervalHours)
                         .repeatForever())
                 .build();
     }
@@ -0,0 +1,117 @@
+package br.com.openfinance.accounts.application.service;
+
+import br.com.openfinance.accounts.application.event.AccountUpdateEvent;
+import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.accounts.domain.exception.AccountRefreshException;
+import br.com.openfinance.accounts.domain.usecase.AccountService;
+import br.com.openfinance.core.processor.ItemOutcome;
+import br.com.openfinance.core.processor.ParallelProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Atualização sob demanda (consentimento recém-autorizado, pedido do cliente). Usa o mesmo
+// processor da varredura, mas pela faixa prioritária: fura a fila do lote e tem uma parte
+// da capacidade reservada, então não espera o ciclo de 12h nem a vez atrás do lote
+@Slf4j
+@Service
+public class AccountRefreshService {
+
+    private final AccountService accountService;
+    private final ParallelProcessor processor;
+    private final ReactiveKafkaProducerTemplate<String, AccountUpdateEvent> kafkaTemplate;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Timer skippedTimer;
+
+    public AccountRefreshService(
+            AccountService accountService,
+            ParallelProcessor processor,
+            ReactiveKafkaProducerTemplate<String, AccountUpdateEvent> kafkaTemplate,
+            MeterRegistry meterRegistry) {
+
+        this.accountService = accountService;
+        this.processor = processor;
+        this.kafkaTemplate = kafkaTemplate;
+        this.successTimer = onDemandTimer(meterRegistry, "success");
+        this.failureTimer = onDemandTimer(meterRegistry, "failure");
+        this.skippedTimer = onDemandTimer(meterRegistry, "skipped");
+    }
+
+    public Mono<Account> refreshNow(String accountId, String clientId, String institutionId) {
+        return accountService.getAccount(accountId, clientId, institutionId)
+                .flatMap(this::refreshNow);
+    }
+
+    public Mono<Account> refreshNow(Account account) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return processor.processPriority(account, account.getInstitutionId(), accountService::updateAccountData)
+                    .flatMap(this::publish)
+                    // Latência de ponta a ponta, com a espera por vaga, que é o que o chamador sente
+                    .doOnNext(updated -> successTimer.record(Duration.ofNanos(System.nanoTime() - startNanos)))
+                    // Vazio (SKIPPED) fica fora do success para não puxar os percentis para baixo
+                    .doOnSuccess(updated -> {
+                        if (updated == null) {
+                            skippedTimer.record(Duration.ofNanos(System.nanoTime() - startNanos));
+                        }
+                    })
+                    .doOnError(error -> failureTimer.record(Duration.ofNanos(System.nanoTime() - startNanos)));
+        });
+    }
+
+    // Contas do cliente na instituição; uma falha não impede as demais
+    public Flux<Account> refreshClient(String clientId, String institutionId) {
+        return accountService.getAccountsByClient(clientId)
+                .filter(account -> institutionId == null || institutionId.equals(account.getInstitutionId()))
+                .flatMap(account -> refreshNow(account)
+                        .onErrorResume(error -> {
+                            log.warn("On-demand refresh of account {} failed: {}",
+                                    account.getAccountId(), error.getMessage());
+                            return Mono.empty();
+                        }));
+    }
+
+    private Mono<Account> publish(ItemOutcome<Account, Account> outcome) {
+        Account account = outcome.item();
+        return switch (outcome.status()) {
+            case SUCCESS -> {
+                Account updated = outcome.result();
+                AccountUpdateEvent event = AccountUpdateEvent.builder()
+                        .accountId(updated.getAccountId())
+                        .clientId(updated.getClientId())
+                        .institutionId(updated.getInstitutionId())
+                        .balance(updated.getBalance())
+                        .limit(updated.getLimit())
+                        .timestamp(LocalDateTime.now())
+                        .build();
+                event.getMetadata().setProcessingTimeMs(outcome.latencyMillis());
+
+                // A conta já foi gravada; falha no evento não desfaz a atualização
+                yield kafkaTemplate.send("account-updates", updated.getAccountId(), event)
+                        .doOnError(error -> log.error("Failed to publish event for account {}: {}",
+                                updated.getAccountId(), error.getMessage()))
+                        .onErrorResume(error -> Mono.empty())
+                        .thenReturn(updated);
+            }
+            case SKIPPED -> Mono.empty();
+            default -> Mono.error(new AccountRefreshException(
+                    account.getAccountId(), outcome.failureClass().name(), outcome.error()));
+        };
+    }
+
+    private static Timer onDemandTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("openfinance.accounts.refresh.on-demand")
+                .description("On-demand account refresh latency, including the wait for a slot")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -5,122 +5,256 @@ import br.com.openfinance.accounts.application.dto.AccountUpdateResult;
 import br.com.openfinance.accounts.application.dto.AccountUpdateResult.BatchResult;
 import br.com.openfinance.accounts.application.event.AccountUpdateEvent;
 import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.accounts.domain.entity.RefreshCheckpoint;
+import br.com.openfinance.accounts.domain.exception.RefreshLeaseLostException;
 import br.com.openfinance.accounts.domain.port.AccountRepository;
 import br.com.openfinance.accounts.domain.usecase.AccountService;
 import br.com.openfinance.core.metrics.OpenFinanceMetrics;
+import br.com.openfinance.core.processor.ItemOutcome;
 import br.com.openfinance.core.processor.ParallelProcessor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.kafka.sender.SenderResult;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AccountUpdateOrchestrator {
 
+    private static final String DEAD_LETTER_TOPIC = "account-updates-dlq";
+
     private final AccountRepository accountRepository;
+    private final RefreshShardLeaseManager leaseManager;
     private final AccountService accountService;
     private final ReactiveKafkaProducerTemplate<String, AccountUpdateEvent> kafkaTemplate;
     private final OpenFinanceMetrics metrics;
+    private final ParallelProcessor processor;
 
     @Value("${openfinance.accounts.update.batch-size:1000}")
     private int batchSize;
 
-    @Value("${openfinance.accounts.update.parallelism:100}")
-    private int parallelism;
+    @Value("${openfinance.accounts.update.pages-in-flight:2}")
+    private int pagesInFlight;
+
+    // Execução em andamento neste pod, para acompanhamento de progresso
+    private final AtomicReference<AccountUpdateResult> currentRun = new AtomicReference<>();
 
-    @Value("${openfinance.accounts.update.timeout:30}")
-    private int timeoutSeconds;
+    public Optional<AccountUpdateResult> currentRun() {
+        return Optional.ofNullable(currentRun.get());
+    }
 
     public Mono<AccountUpdateResult> orchestrateAccountUpdates() {
         String executionId = UUID.randomUUID().toString();
-        LocalDateTime startTime = LocalDateTime.now();
-        AtomicInteger processedCount = new AtomicInteger(0);
-        AtomicInteger errorCount = new AtomicInteger(0);
         AtomicInteger batchCounter = new AtomicInteger(0);
 
-        AccountUpdateResult result = AccountUpdateResult.builder()
-                .executionId(executionId)
-                .startTime(startTime)
-                .build();
+        AccountUpdateResult result = AccountUpdateResult.start(executionId);
+
+        return Mono.fromRunnable(() -> currentRun.set(result))
+                .then(Mono.defer(() -> processShards(executionId, result, batchCounter)))
+                .then(Mono.fromCallable(() -> {
+                    result.complete();
+                    return result;
+                }))
+                .doOnError(error -> {
+                    log.error("Account update orchestration failed", error);
+                    result.fail(error.getMessage());
+                })
+                .doFinally(signal -> {
+                    log.info("Account update orchestration completed. Total processed: {}, Errors: {}",
+                            result.getTotalProcessed(), result.getTotalErrors());
+                });
+    }
+
+    private Mono<Void> processShards(
+            String executionId,
+            AccountUpdateResult result,
+            AtomicInteger batchCounter) {
 
-        ParallelProcessor<Account, Account> processor = new ParallelProcessor<>(
-                parallelism,
-                batchSize,
-                Duration.ofSeconds(timeoutSeconds)
-        );
+        // Cada pod pega um shard livre por vez até não restar nenhum no ciclo
+        return leaseManager.claimNext(executionId)
+                .flatMap(checkpoint -> countClaimed(checkpoint, result)
+                        .flatMap(claimed -> scanShard(checkpoint, claimed, result, batchCounter))
+                        .then(Mono.defer(() -> processShards(executionId, result, batchCounter))));
+    }
+
+    // Só alimenta o ETA; se a contagem falhar o shard é varrido do mesmo jeito, sem estimativa
+    private Mono<Long> countClaimed(RefreshCheckpoint checkpoint, AccountUpdateResult result) {
+        return accountRepository.countAccountsForUpdate(checkpoint)
+                .doOnNext(result::addClaimed)
+                .onErrorResume(error -> {
+                    log.warn("Could not count accounts due in shard {}: {}",
+                            checkpoint.getShard(), error.getMessage());
+                    result.claimedCountFailed();
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(0L);
+    }
 
-        return accountRepository.findAccountsForUpdate(1_000_000)
-                .buffer(batchSize)
-                .flatMap(batch -> {
-                    int batchNumber = batchCounter.incrementAndGet();
-                    long batchStartTime = System.currentTimeMillis();
+    private Mono<Void> scanShard(
+            RefreshCheckpoint checkpoint,
+            long claimed,
+            AccountUpdateResult result,
+            AtomicInteger batchCounter) {
 
-                    return processBatch(batch, processor, processedCount, errorCount)
-                            .then(Mono.fromCallable(() -> {
-                                long processingTime = System.currentTimeMillis() - batchStartTime;
+        long processedBefore = checkpoint.getProcessedCount();
 
-                                BatchResult batchResult = BatchResult.builder()
-                                        .batchNumber(batchNumber)
-                                        .batchSize(batch.size())
-                                        .successCount(processedCount.get())
-                                        .errorCount(errorCount.get())
-                                        .processingTimeMs(processingTime)
-                                        .processedAt(LocalDateTime.now())
-                                        .build();
+        return accountRepository.findAccountsForUpdate(checkpoint, batchSize)
+                // Até pagesInFlight páginas em processamento, para o scheduler justo ter contas de
+                // outras instituições quando uma página é dominada por um só banco
+                .flatMapSequential(batch -> {
+                    BatchResult batchResult = result.startBatch(batchCounter.incrementAndGet(), batch.size());
+                    return processBatch(batch, result, batchResult)
+                            .then(Mono.fromCallable(() -> Map.entry(batch, batchResult)));
+                }, pagesInFlight, 1)
+                // Resultados chegam na ordem das páginas: o checkpoint só avança depois que todas
+                // as páginas anteriores foram concluídas
+                .concatMap(page -> {
+                    List<Account> batch = page.getKey();
+                    BatchResult batchResult = page.getValue();
 
-                                result.addBatchResult(batchResult);
+                    return leaseManager.checkpoint(checkpoint, batch.get(batch.size() - 1), batch.size())
+                            .then(Mono.fromCallable(() -> {
+                                result.addBatchResult(batchResult.finish());
 
-                                log.info("Batch {} processed: {} items in {}ms",
-                                        batchNumber, batch.size(), processingTime);
+                                AccountUpdateResult.Progress progress = result.getProgress();
+                                log.info("Batch {} of shard {} processed: {} items ({} ok, {} errors) in {}ms; "
+                                                + "run at {}/s, ETA {}",
+                                        batchResult.getBatchNumber(), checkpoint.getShard(), batch.size(),
+                                        batchResult.getSuccessCount(), batchResult.getErrorCount(),
+                                        batchResult.getProcessingTimeMs(),
+                                        String.format("%.1f", progress.throughputPerSecond()), progress.eta());
 
                                 return batchResult;
                             }));
                 })
-                .then(Mono.fromCallable(() -> {
-                    result.complete();
-                    return result;
-                }))
-                .doFinally(signal -> {
-                    processor.shutdown();
-                    log.info("Account update orchestration completed. Total processed: {}, Errors: {}",
-                            processedCount.get(), errorCount.get());
+                .then(Mono.defer(() -> leaseManager.complete(checkpoint)))
+                .then()
+                .onErrorResume(RefreshLeaseLostException.class, error -> {
+                    log.warn("Shard {} was taken over by another pod, moving on", checkpoint.getShard());
+                    return Mono.empty();
                 })
-                .doOnError(error -> {
-                    log.error("Account update orchestration failed", error);
-                    result.fail(error.getMessage());
-                });
+                .onErrorResume(error -> leaseManager.release(checkpoint).then(Mono.error(error)))
+                // O shard passa a contar o que foi de fato varrido: contas que ficaram devidas durante
+                // a varredura entram, e o resto de um shard perdido para outro pod sai
+                .doFinally(signal -> result.addClaimed(
+                        checkpoint.getProcessedCount() - processedBefore - claimed));
     }
 
     private Mono<Void> processBatch(
             List<Account> batch,
-            ParallelProcessor<Account, Account> processor,
-            AtomicInteger processedCount,
-            AtomicInteger errorCount) {
-
-        return processor.processInParallel(batch, account ->
-                        accountService.updateAccountData(account)
-                                .flatMap(updatedAccount ->
-                                        publishToKafka(updatedAccount)
-                                                .thenReturn(updatedAccount) // Retorna o account após publicar no Kafka
-                                )
-                                .doOnSuccess(result -> processedCount.incrementAndGet())
-                                .doOnError(error -> {
-                                    errorCount.incrementAndGet();
-                                    log.error("Failed to update account {}: {}", account.getAccountId(), error.getMessage());
-                                })
-                                .onErrorResume(error -> Mono.empty())
-                )
+            AccountUpdateResult result,
+            BatchResult batchResult) {
+
+        // Falhas retentáveis (throttling, 5xx, timeout) entram numa segunda rodada só com elas,
+        // no fim do lote; o resto, e o que falhar de novo, vai para a dead-letter
+        Queue<Account> retries = new ConcurrentLinkedQueue<>();
+        // Latência da busca de cada conta até a gravação, para a métrica da chamada sair só das gravadas
+        Map<String, Long> fetchLatencies = new ConcurrentHashMap<>();
+        Flux<Account> firstAttempt = refresh(Flux.fromIterable(batch), result)
+                .flatMap(outcome -> route(outcome, result, batchResult, retries, fetchLatencies));
+        Flux<Account> retryAttempt = Flux.defer(() -> retries.isEmpty()
+                ? Flux.empty()
+                : refresh(Flux.fromIterable(retries), result)
+                        .flatMap(outcome -> route(outcome, result, batchResult, null, fetchLatencies)));
+        Flux<Account> refreshed = firstAttempt.concatWith(retryAttempt);
+
+        // Gravação em lote via bulk executor; o evento só é publicado para contas gravadas
+        return accountService.saveAccounts(refreshed)
+                .flatMap(saveResult -> {
+                    Account savedAccount = saveResult.getAccount();
+                    Long latency = fetchLatencies.remove(savedAccount.getId());
+                    if (!saveResult.isSuccess()) {
+                        batchResult.incrementError();
+                        result.incrementErrorType("save-" + saveResult.getStatusCode());
+                        metrics.incrementErrors("account-save", String.valueOf(saveResult.getStatusCode()));
+                        return Mono.empty();
+                    }
+                    metrics.recordApiCall(savedAccount.getInstitutionId(), "account-update", 200,
+                            latency == null ? 0 : latency);
+                    metrics.incrementProcessedAccounts("updated");
+                    return publishToKafka(savedAccount)
+                            .doOnSuccess(sent -> batchResult.incrementSuccess())
+                            .doOnError(error -> {
+                                batchResult.incrementError();
+                                result.incrementErrorType(error.getClass().getSimpleName());
+                            })
+                            .onErrorResume(error -> Mono.empty());
+                })
+                .then();
+    }
+
+    private Flux<ItemOutcome<Account, Account>> refresh(Flux<Account> accounts, AccountUpdateResult result) {
+        // Vagas distribuídas entre instituições, não na ordem de lastUpdated
+        return processor.processFairWithOutcomes(accounts, Account::getInstitutionId, account -> Mono.defer(() -> {
+                    result.accountStarted();
+                    return accountService.fetchAccountData(account);
+                })
+                .doFinally(signal -> result.accountFinished()))
+                .doOnNext(outcome -> result.recordOutcome(outcome.item().getInstitutionId(), outcome));
+    }
+
+    private Mono<Account> route(
+            ItemOutcome<Account, Account> outcome,
+            AccountUpdateResult result,
+            BatchResult batchResult,
+            Queue<Account> retries,
+            Map<String, Long> fetchLatencies) {
+
+        Account account = outcome.item();
+        switch (outcome.status()) {
+            case SUCCESS -> {
+                fetchLatencies.put(outcome.result().getId(), outcome.latencyMillis());
+                return Mono.just(outcome.result());
+            }
+            case SKIPPED -> {
+                batchResult.incrementSkipped();
+                return Mono.empty();
+            }
+            default -> {
+                if (retries != null && outcome.isRetryable()) {
+                    retries.add(account);
+                    return Mono.empty();
+                }
+                batchResult.incrementError();
+                result.incrementErrorType(outcome.failureClass().name());
+                metrics.incrementErrors("account-update", outcome.failureClass().name());
+                log.warn("Failed to update account {} ({}): {}",
+                        account.getAccountId(), outcome.failureClass(), outcome.error());
+                return publishToDeadLetter(outcome).then(Mono.empty());
+            }
+        }
+    }
+
+    private Mono<Void> publishToDeadLetter(ItemOutcome<Account, Account> outcome) {
+        Account account = outcome.item();
+        AccountUpdateEvent event = AccountUpdateEvent.failure(
+                account.getAccountId(),
+                account.getClientId(),
+                account.getInstitutionId(),
+                outcome.error(),
+                outcome.failureClass().name());
+        event.getMetadata().setProcessingTimeMs(outcome.latencyMillis());
+
+        return kafkaTemplate.send(DEAD_LETTER_TOPIC, account.getAccountId(), event)
+                .doOnError(error -> log.error("Failed to dead-letter account {}: {}",
+                        account.getAccountId(), error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
                 .then();
     }
 
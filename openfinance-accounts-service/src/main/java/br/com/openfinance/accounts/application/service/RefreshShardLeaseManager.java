@@ -0,0 +1,105 @@
+package br.com.openfinance.accounts.application.service;
+
+import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.accounts.domain.entity.RefreshCheckpoint;
+import br.com.openfinance.accounts.domain.port.RefreshCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class RefreshShardLeaseManager {
+
+    public static final String SCAN_ID = "account-refresh";
+
+    private final RefreshCheckpointRepository checkpointRepository;
+    private final String owner;
+    private final Duration leaseTtl;
+    private final Duration cycleInterval;
+
+    public RefreshShardLeaseManager(
+            RefreshCheckpointRepository checkpointRepository,
+            @Value("${HOSTNAME:}") String hostname,
+            @Value("${openfinance.accounts.update.lease-ttl:600}") int leaseTtlSeconds,
+            @Value("${openfinance.accounts.update.interval:12}") int intervalHours) {
+
+        this.checkpointRepository = checkpointRepository;
+        this.owner = hostname.isEmpty() ? UUID.randomUUID().toString() : hostname;
+        this.leaseTtl = Duration.ofSeconds(leaseTtlSeconds);
+        this.cycleInterval = Duration.ofHours(intervalHours);
+    }
+
+    public Mono<RefreshCheckpoint> claimNext(String executionId) {
+        LocalDateTime now = LocalDateTime.now();
+
+        return checkpointRepository.findByScanId(SCAN_ID)
+                .collectMap(RefreshCheckpoint::getShard)
+                .flatMapMany(existing -> Flux.fromIterable(candidates(existing, now)))
+                // Tenta um candidato por vez; quem perder a disputa segue para o próximo
+                .concatMap(candidate -> checkpointRepository.tryAcquire(candidate.lease(owner, executionId, leaseTtl)))
+                .next()
+                .doOnNext(checkpoint -> log.info("Shard {} leased by {} (resuming after {}, {} already processed)",
+                        checkpoint.getShard(), owner, checkpoint.getLastAccountId(), checkpoint.getProcessedCount()));
+    }
+
+    public Mono<RefreshCheckpoint> checkpoint(RefreshCheckpoint checkpoint, Account last, int pageSize) {
+        return checkpointRepository.save(checkpoint.advance(last, pageSize).renew(leaseTtl));
+    }
+
+    public Mono<RefreshCheckpoint> complete(RefreshCheckpoint checkpoint) {
+        return checkpointRepository.save(checkpoint.complete())
+                .doOnNext(completed -> log.info("Shard {} completed by {}: {} accounts",
+                        completed.getShard(), owner, completed.getProcessedCount()));
+    }
+
+    public Mono<Void> release(RefreshCheckpoint checkpoint) {
+        return checkpointRepository.save(checkpoint.release())
+                .doOnError(error -> log.warn("Failed to release shard {}: {}", checkpoint.getShard(), error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private List<RefreshCheckpoint> candidates(Map<Integer, RefreshCheckpoint> existing, LocalDateTime now) {
+        // Shards concluídos há menos de meio ciclo já foram atualizados por outro pod
+        LocalDateTime currentCycle = now.minus(cycleInterval.dividedBy(2));
+
+        List<RefreshCheckpoint> orphaned = new ArrayList<>();
+        List<RefreshCheckpoint> fresh = new ArrayList<>();
+        List<RefreshCheckpoint> stale = new ArrayList<>();
+
+        for (int shard = 0; shard < Account.REFRESH_SHARDS; shard++) {
+            RefreshCheckpoint checkpoint = existing.get(shard);
+            if (checkpoint == null) {
+                fresh.add(RefreshCheckpoint.forShard(SCAN_ID, shard));
+            } else if (checkpoint.isLeasedAt(now) && !owner.equals(checkpoint.getOwner())) {
+                continue;
+            } else if (RefreshCheckpoint.STATUS_RUNNING.equals(checkpoint.getStatus())) {
+                orphaned.add(checkpoint);
+            } else if (!checkpoint.isCompletedAfter(currentCycle)) {
+                stale.add(checkpoint);
+            }
+        }
+
+        // Embaralha para que pods concorrentes não disputem sempre o mesmo shard
+        Collections.shuffle(orphaned);
+        Collections.shuffle(fresh);
+        Collections.shuffle(stale);
+
+        List<RefreshCheckpoint> candidates = new ArrayList<>(orphaned.size() + fresh.size() + stale.size());
+        candidates.addAll(orphaned);
+        candidates.addAll(fresh);
+        candidates.addAll(stale);
+        return candidates;
+    }
+}
@@ -13,6 +13,10 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Account {
+
+    // Não alterar: o shard fica gravado no documento e define a divisão da varredura entre pods
+    public static final int REFRESH_SHARDS = 256;
+
     private String id;
     private String accountId;
     private String clientId;
@@ -30,19 +34,27 @@ public class Account {
     private LocalDateTime lastUpdated;
     private String status;
     private String partitionKey;
+    private Integer shard;
 
     public static Account create(String clientId, String consentId, String institutionId) {
+        String partitionKey = partitionKeyOf(clientId, institutionId);
         return Account.builder()
                 .id(UUID.randomUUID().toString())
                 .clientId(clientId)
                 .consentId(consentId)
                 .institutionId(institutionId)
                 .status("PENDING")
-                .partitionKey(generatePartitionKey(clientId, institutionId))
+                .partitionKey(partitionKey)
+                .shard(shardOf(partitionKey))
                 .build();
     }
 
-    private static String generatePartitionKey(String clientId, String institutionId) {
+    public static int shardOf(String partitionKey) {
+        // String.hashCode é estável entre JVMs, então todos os pods calculam o mesmo shard
+        return Math.floorMod(partitionKey.hashCode(), REFRESH_SHARDS);
+    }
+
+    public static String partitionKeyOf(String clientId, String institutionId) {
         // Estratégia de particionamento para distribuir dados uniformemente
         return String.format("%s:%s", clientId.substring(0, 3), institutionId);
     }
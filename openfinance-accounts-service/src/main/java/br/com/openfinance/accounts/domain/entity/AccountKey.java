@@ -0,0 +1,17 @@
+package br.com.openfinance.accounts.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountKey {
+    private String id;
+    private String partitionKey;
+
+    public static AccountKey of(String id, String clientId, String institutionId) {
+        return new AccountKey(id, Account.partitionKeyOf(clientId, institutionId));
+    }
+}
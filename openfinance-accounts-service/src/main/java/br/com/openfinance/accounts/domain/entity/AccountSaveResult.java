@@ -0,0 +1,36 @@
+package br.com.openfinance.accounts.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountSaveResult {
+    private Account account;
+    private boolean success;
+    private int statusCode;
+    private double requestCharge;
+    private String errorMessage;
+
+    public static AccountSaveResult success(Account account, int statusCode, double requestCharge) {
+        return AccountSaveResult.builder()
+                .account(account)
+                .success(true)
+                .statusCode(statusCode)
+                .requestCharge(requestCharge)
+                .build();
+    }
+
+    public static AccountSaveResult failure(Account account, int statusCode, String errorMessage) {
+        return AccountSaveResult.builder()
+                .account(account)
+                .success(false)
+                .statusCode(statusCode)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.openfinance.accounts.domain.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshCheckpoint {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private String id;
+    private String scanId;
+    private Integer shard;
+    private String executionId;
+    // Posição do keyset (lastUpdated, id) da última conta já processada
+    private LocalDateTime lastUpdated;
+    private String lastAccountId;
+    private long processedCount;
+    private String status;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+
+    // Lease: apenas um pod varre cada shard por vez
+    private String owner;
+    private LocalDateTime leaseExpiresAt;
+
+    @JsonProperty("_etag")
+    private String etag;
+
+    public static RefreshCheckpoint forShard(String scanId, int shard) {
+        return RefreshCheckpoint.builder()
+                .id(String.format("%s:%03d", scanId, shard))
+                .scanId(scanId)
+                .shard(shard)
+                .status(STATUS_RUNNING)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    public boolean isResumable() {
+        return STATUS_RUNNING.equals(status) && lastAccountId != null;
+    }
+
+    public boolean isLeasedAt(LocalDateTime now) {
+        return owner != null && leaseExpiresAt != null && leaseExpiresAt.isAfter(now);
+    }
+
+    public boolean isCompletedAfter(LocalDateTime instant) {
+        return STATUS_COMPLETED.equals(status) && completedAt != null && completedAt.isAfter(instant);
+    }
+
+    public RefreshCheckpoint lease(String owner, String executionId, Duration ttl) {
+        if (STATUS_COMPLETED.equals(status)) {
+            // Novo ciclo: recomeça a varredura do shard do início
+            this.status = STATUS_RUNNING;
+            this.lastUpdated = null;
+            this.lastAccountId = null;
+            this.processedCount = 0;
+            this.completedAt = null;
+        }
+        this.owner = owner;
+        this.executionId = executionId;
+        return renew(ttl);
+    }
+
+    public RefreshCheckpoint renew(Duration ttl) {
+        this.updatedAt = LocalDateTime.now();
+        this.leaseExpiresAt = this.updatedAt.plus(ttl);
+        return this;
+    }
+
+    public RefreshCheckpoint release() {
+        this.owner = null;
+        this.leaseExpiresAt = null;
+        this.updatedAt = LocalDateTime.now();
+        return this;
+    }
+
+    public RefreshCheckpoint advance(Account last, int pageSize) {
+        this.lastUpdated = last.getLastUpdated();
+        this.lastAccountId = last.getId();
+        this.processedCount += pageSize;
+        this.updatedAt = LocalDateTime.now();
+        return this;
+    }
+
+    public RefreshCheckpoint complete() {
+        this.status = STATUS_COMPLETED;
+        this.updatedAt = LocalDateTime.now();
+        this.completedAt = this.updatedAt;
+        return release();
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.openfinance.accounts.domain.exception;
+
+import lombok.Getter;
+
+@Getter
+public class AccountRefreshException extends RuntimeException {
+
+    private final String accountId;
+    private final String failureClass;
+    private final String errorCode;
+
+    public AccountRefreshException(String accountId, String failureClass, String message) {
+        super(String.format("Failed to refresh account %s (%s): %s", accountId, failureClass, message));
+        this.accountId = accountId;
+        this.failureClass = failureClass;
+        this.errorCode = "ACCOUNT_REFRESH_FAILED";
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.openfinance.accounts.domain.exception;
+
+import lombok.Getter;
+
+@Getter
+public class RefreshLeaseLostException extends RuntimeException {
+
+    private final String checkpointId;
+    private final String errorCode;
+
+    public RefreshLeaseLostException(String checkpointId) {
+        super(String.format("Refresh lease lost: %s", checkpointId));
+        this.checkpointId = checkpointId;
+        this.errorCode = "REFRESH_LEASE_LOST";
+    }
+
+    public RefreshLeaseLostException(String checkpointId, Throwable cause) {
+        super(String.format("Refresh lease lost: %s", checkpointId), cause);
+        this.checkpointId = checkpointId;
+        this.errorCode = "REFRESH_LEASE_LOST";
+    }
+}
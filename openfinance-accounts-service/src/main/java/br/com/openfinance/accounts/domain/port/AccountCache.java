@@ -0,0 +1,15 @@
+package br.com.openfinance.accounts.domain.port;
+
+import br.com.openfinance.accounts.domain.entity.Account;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+public interface AccountCache {
+    Mono<Account> get(String id, Supplier<Mono<Account>> loader);
+    Mono<List<Account>> getByClient(String clientId, Supplier<Flux<Account>> loader);
+    Mono<Void> put(Account account);
+    Mono<Void> putAll(List<Account> accounts);
+}
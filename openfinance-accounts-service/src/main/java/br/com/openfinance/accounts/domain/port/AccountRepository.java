@@ -1,14 +1,24 @@
 package br.com.openfinance.accounts.domain.port;
 
 import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.accounts.domain.entity.AccountKey;
+import br.com.openfinance.accounts.domain.entity.AccountSaveResult;
+import br.com.openfinance.accounts.domain.entity.RefreshCheckpoint;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface AccountRepository {
     Mono<Account> save(Account account);
+    Flux<AccountSaveResult> saveAll(Flux<Account> accounts);
     Mono<Account> findById(String id);
+    Mono<Account> findById(String id, String partitionKey);
+    Flux<Account> findAllById(List<AccountKey> keys);
     Flux<Account> findByClientId(String clientId);
     Flux<Account> findByConsentId(String consentId);
     Flux<Account> findAccountsForUpdate(int limit);
+    Flux<List<Account>> findAccountsForUpdate(RefreshCheckpoint from, int pageSize);
+    Mono<Long> countAccountsForUpdate(RefreshCheckpoint from);
     Mono<Long> countByClientId(String clientId);
 }
@@ -0,0 +1,14 @@
+package br.com.openfinance.accounts.domain.port;
+
+import br.com.openfinance.accounts.domain.entity.RefreshCheckpoint;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface RefreshCheckpointRepository {
+    Mono<RefreshCheckpoint> findById(String checkpointId);
+    Flux<RefreshCheckpoint> findByScanId(String scanId);
+    // Vazio quando outro pod ganhou a disputa pelo lease
+    Mono<RefreshCheckpoint> tryAcquire(RefreshCheckpoint checkpoint);
+    // Falha com RefreshLeaseLostException se o lease foi tomado por outro pod
+    Mono<RefreshCheckpoint> save(RefreshCheckpoint checkpoint);
+}
@@ -1,82 +1,138 @@
 package br.com.openfinance.accounts.domain.usecase;
 
 import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.accounts.domain.entity.AccountKey;
+import br.com.openfinance.accounts.domain.entity.AccountSaveResult;
 import br.com.openfinance.accounts.domain.exception.AccountNotFoundException;
+import br.com.openfinance.accounts.domain.port.AccountCache;
 import br.com.openfinance.accounts.domain.port.AccountRepository;
 import br.com.openfinance.accounts.domain.port.OpenFinanceApiClient;
 import br.com.openfinance.core.metrics.OpenFinanceMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AccountService {
 
+    private static final int CACHE_WRITE_BATCH_SIZE = 100;
+    private static final Duration CACHE_WRITE_FLUSH_INTERVAL = Duration.ofMillis(200);
+
     private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
     private final OpenFinanceApiClient apiClient;
     private final OpenFinanceMetrics metrics;
 
-    @Cacheable(value = "accounts", key = "#accountId")
     public Mono<Account> getAccount(String accountId) {
-        return accountRepository.findById(accountId)
-                .doOnNext(account -> log.debug("Account {} retrieved from repository", accountId))
+        return accountCache.get(accountId, () -> accountRepository.findById(accountId)
+                        .doOnNext(account -> log.debug("Account {} retrieved from repository", accountId)))
                 .switchIfEmpty(Mono.error(new AccountNotFoundException(accountId)));
     }
 
-    @Cacheable(value = "accounts-by-client", key = "#clientId")
+    public Mono<Account> getAccount(String accountId, String clientId, String institutionId) {
+        // Leitura pontual: partition key derivada de clientId/institutionId
+        return accountCache.get(accountId, () -> accountRepository
+                        .findById(accountId, Account.partitionKeyOf(clientId, institutionId))
+                        .doOnNext(account -> log.debug("Account {} retrieved from repository", accountId)))
+                .switchIfEmpty(Mono.error(new AccountNotFoundException(accountId)));
+    }
+
+    public Flux<Account> getAccounts(List<AccountKey> keys) {
+        return accountRepository.findAllById(keys)
+                .doOnNext(account -> metrics.incrementProcessedAccounts("retrieved"));
+    }
+
     public Flux<Account> getAccountsByClient(String clientId) {
-        return accountRepository.findByClientId(clientId)
+        return accountCache.getByClient(clientId, () -> accountRepository.findByClientId(clientId))
+                .flatMapIterable(accounts -> accounts)
                 .doOnNext(account -> metrics.incrementProcessedAccounts("retrieved"));
     }
 
-    @CacheEvict(value = {"accounts", "accounts-by-client"}, allEntries = true)
     public Mono<Account> updateAccountData(Account account) {
         String institutionId = account.getInstitutionId();
         String accountId = account.getAccountId();
-        String consentId = account.getConsentId();
 
         long startTime = System.currentTimeMillis();
 
+        return fetchAccountData(account)
+                .flatMap(accountRepository::save)
+                // Write-through: atualiza só as entradas desta conta e do seu cliente
+                .flatMap(savedAccount -> accountCache.put(savedAccount).thenReturn(savedAccount))
+                .doOnSuccess(savedAccount -> {
+                    long duration = System.currentTimeMillis() - startTime;
+                    metrics.recordApiCall(institutionId, "account-update", 200, duration);
+                    metrics.incrementProcessedAccounts("updated");
+                    // Volume e latência já saem nas métricas; por conta só em DEBUG
+                    log.debug("Account {} updated successfully in {}ms", accountId, duration);
+                })
+                .doOnError(error -> {
+                    metrics.incrementErrors("account-update", error.getClass().getSimpleName());
+                    log.atError()
+                            .addKeyValue("accountId", accountId)
+                            .addKeyValue("institution", institutionId)
+                            .addKeyValue("error", error.getClass().getSimpleName())
+                            .setCause(error)
+                            .log("Failed to update account");
+                });
+    }
+
+    public Mono<Account> fetchAccountData(Account account) {
+        String institutionId = account.getInstitutionId();
+        String accountId = account.getAccountId();
+        String consentId = account.getConsentId();
+
         return Mono.zip(
                         apiClient.getAccountDetails(institutionId, accountId, consentId),
                         apiClient.getAccountBalance(institutionId, accountId, consentId),
                         apiClient.getAccountLimits(institutionId, accountId, consentId)
+                                .map(Optional::of)
                                 .onErrorResume(error -> {
                                     log.warn("Failed to get limits for account {}: {}", accountId, error.getMessage());
-                                    return Mono.empty();
+                                    return Mono.just(Optional.empty());
                                 })
+                                // Sem limite o zip não pode terminar vazio
+                                .defaultIfEmpty(Optional.empty())
                 )
                 .map(tuple -> {
                     Account updatedAccount = tuple.getT1();
+                    // A API não devolve os campos de identidade do documento
+                    updatedAccount.setId(account.getId());
+                    updatedAccount.setAccountId(accountId);
+                    updatedAccount.setClientId(account.getClientId());
+                    updatedAccount.setConsentId(consentId);
+                    updatedAccount.setInstitutionId(institutionId);
+                    updatedAccount.setPartitionKey(account.getPartitionKey());
+                    updatedAccount.setShard(account.getShard());
                     updatedAccount.setBalance(tuple.getT2());
-                    if (tuple.getT3() != null) {
-                        updatedAccount.setLimit(tuple.getT3());
-                    }
+                    tuple.getT3().ifPresent(updatedAccount::setLimit);
                     updatedAccount.setLastUpdated(LocalDateTime.now());
                     updatedAccount.setStatus("ACTIVE");
                     return updatedAccount;
-                })
-                .flatMap(accountRepository::save)
-                .doOnSuccess(savedAccount -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    metrics.recordApiCall(institutionId, "account-update", 200, duration);
-                    metrics.incrementProcessedAccounts("updated");
-                    log.info("Account {} updated successfully in {}ms", accountId, duration);
-                })
-                .doOnError(error -> {
-                    metrics.incrementErrors("account-update", error.getClass().getSimpleName());
-                    log.error("Failed to update account {}", accountId, error);
                 });
     }
 
+    public Flux<AccountSaveResult> saveAccounts(Flux<Account> accounts) {
+        // Métricas por conta ficam com quem chama, que conhece a latência da busca de cada uma
+        return accountRepository.saveAll(accounts)
+                // Write-through em lotes: um pipeline Redis por lote gravado. Variante justa: com o Redis
+                // lento o timer não emite sem demanda, o que derrubaria o lote por um cache best-effort
+                .bufferTimeout(CACHE_WRITE_BATCH_SIZE, CACHE_WRITE_FLUSH_INTERVAL, true)
+                .concatMap(results -> accountCache.putAll(results.stream()
+                                .filter(AccountSaveResult::isSuccess)
+                                .map(AccountSaveResult::getAccount)
+                                .toList())
+                        .thenMany(Flux.fromIterable(results)));
+    }
+
     public Mono<Long> countAccountsByClient(String clientId) {
         return accountRepository.countByClientId(clientId);
     }
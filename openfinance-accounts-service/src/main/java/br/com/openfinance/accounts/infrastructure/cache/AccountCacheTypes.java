@@ -0,0 +1,20 @@
+package br.com.openfinance.accounts.infrastructure.cache;
+
+import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.core.cache.CacheTypeRegistrar;
+import br.com.openfinance.core.cache.CacheTypeRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AccountCacheTypes implements CacheTypeRegistrar {
+
+    // Ids gravados junto com o valor no Redis: não renumerar
+    private static final int ACCOUNT = 100;
+    private static final int ACCOUNT_LIST = 101;
+
+    @Override
+    public void register(CacheTypeRegistry registry) {
+        registry.register(ACCOUNT, Account.class)
+                .registerList(ACCOUNT_LIST, Account.class);
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.openfinance.accounts.infrastructure.cache;
+
+import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.accounts.domain.port.AccountCache;
+import br.com.openfinance.core.cache.ReactiveCache;
+import br.com.openfinance.core.cache.ReactiveCacheManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class RedisAccountCache implements AccountCache {
+
+    // Mesmo prefixo usado pelo ReactiveCache ("nome::chave")
+    private static final String ACCOUNTS_PREFIX = "accounts::";
+    private static final String ACCOUNTS_BY_CLIENT_PREFIX = "accounts-by-client::";
+
+    // Compare-and-set: só grava a lista nova se ninguém alterou a entrada depois do GET; senão descarta
+    private static final ByteBuffer COMPARE_AND_SET_SCRIPT = StandardCharsets.UTF_8.encode("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+                return 1
+            end
+            redis.call('DEL', KEYS[1])
+            return 0
+            """);
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ReactiveCache accountsCache;
+    private final ReactiveCache accountsByClientCache;
+    private final RedisSerializationContext.SerializationPair<String> keys;
+    private final RedisSerializationContext.SerializationPair<Object> values;
+    private final Duration ttl;
+
+    public RedisAccountCache(
+            ReactiveRedisTemplate<String, Object> redisTemplate,
+            ReactiveCacheManager cacheManager,
+            @Value("${openfinance.cache.ttl:13}") int cacheTtlHours) {
+
+        this.redisTemplate = redisTemplate;
+        this.accountsCache = cacheManager.getCache("accounts");
+        this.accountsByClientCache = cacheManager.getCache("accounts-by-client");
+        this.keys = redisTemplate.getSerializationContext().getKeySerializationPair();
+        this.values = redisTemplate.getSerializationContext().getValueSerializationPair();
+        this.ttl = Duration.ofHours(cacheTtlHours);
+    }
+
+    @Override
+    public Mono<Account> get(String id, Supplier<Mono<Account>> loader) {
+        return accountsCache.get(id, Account.class, loader);
+    }
+
+    @Override
+    public Mono<List<Account>> getByClient(String clientId, Supplier<Flux<Account>> loader) {
+        return accountsByClientCache.getList(clientId, Account.class, loader);
+    }
+
+    @Override
+    public Mono<Void> put(Account account) {
+        return putAll(List.of(account));
+    }
+
+    @Override
+    public Mono<Void> putAll(List<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return Mono.empty();
+        }
+
+        Map<String, List<Account>> byClient = accounts.stream()
+                .filter(account -> account.getClientId() != null)
+                .collect(Collectors.groupingBy(Account::getClientId));
+
+        // Comandos disparados em paralelo na conexão compartilhada: o Lettuce os envia em pipeline
+        return redisTemplate.execute(connection -> Flux.merge(
+                        Flux.fromIterable(accounts).flatMap(account -> setAccount(connection, account)),
+                        Flux.fromIterable(byClient.entrySet())
+                                .flatMap(entry -> mergeClientEntry(connection, entry.getKey(), entry.getValue()))))
+                .then(Mono.defer(() -> {
+                    // L1 local recebe os valores novos; os demais pods descartam suas cópias
+                    accounts.forEach(account -> accountsCache.putLocal(account.getId(), account));
+                    byClient.keySet().forEach(accountsByClientCache::invalidateLocal);
+                    return accountsCache.publishInvalidation(accounts.stream().map(Account::getId).toList())
+                            .then(accountsByClientCache.publishInvalidation(byClient.keySet()));
+                }))
+                .doOnError(error -> log.warn("Failed to write {} accounts through to cache: {}",
+                        accounts.size(), error.getMessage()))
+                .onErrorResume(error -> Mono.empty());
+    }
+
+    private Mono<Boolean> setAccount(ReactiveRedisConnection connection, Account account) {
+        return connection.stringCommands().set(
+                keys.write(ACCOUNTS_PREFIX + account.getId()),
+                values.write(account),
+                Expiration.from(ttl),
+                RedisStringCommands.SetOption.upsert());
+    }
+
+    private Mono<Boolean> mergeClientEntry(ReactiveRedisConnection connection, String clientId, List<Account> updated) {
+        ByteBuffer key = keys.write(ACCOUNTS_BY_CLIENT_PREFIX + clientId);
+
+        // Só atualiza listas já em cache; se a entrada não existe a próxima leitura a carrega completa
+        return connection.stringCommands().get(key)
+                .flatMap(current -> {
+                    List<Object> merged = merge(values.read(current.duplicate()), updated);
+                    return connection.scriptingCommands().<Long>eval(
+                                    COMPARE_AND_SET_SCRIPT.duplicate(), ReturnType.INTEGER, 1,
+                                    key.duplicate(), current, values.write(merged),
+                                    StandardCharsets.UTF_8.encode(String.valueOf(ttl.toSeconds())))
+                            .next()
+                            .map(result -> result == 1L);
+                });
+    }
+
+    private List<Object> merge(Object cached, List<Account> updated) {
+        List<Object> merged = cached instanceof List<?> list ? new ArrayList<>(list) : new ArrayList<>();
+
+        for (Account account : updated) {
+            int index = indexOf(merged, account.getId());
+            if (index >= 0) {
+                merged.set(index, account);
+            } else {
+                merged.add(account);
+            }
+        }
+        return merged;
+    }
+
+    private int indexOf(List<Object> cached, String accountId) {
+        for (int i = 0; i < cached.size(); i++) {
+            if (cached.get(i) instanceof Account account && Objects.equals(account.getId(), accountId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
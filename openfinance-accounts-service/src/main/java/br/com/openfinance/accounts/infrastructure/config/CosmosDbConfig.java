@@ -4,7 +4,11 @@ import com.azure.cosmos.ConsistencyLevel;
 import com.azure.cosmos.CosmosAsyncClient;
 import com.azure.cosmos.CosmosAsyncDatabase;
 import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.models.CompositePath;
+import com.azure.cosmos.models.CompositePathSortOrder;
 import com.azure.cosmos.models.CosmosContainerProperties;
+import com.azure.cosmos.models.IncludedPath;
+import com.azure.cosmos.models.IndexingPolicy;
 import com.azure.cosmos.models.ThroughputProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -39,6 +43,9 @@ public class CosmosDbConfig {
     @Value("${azure.cosmos.connection-mode:DIRECT}")
     private String connectionMode;
 
+    @Value("${azure.cosmos.container.checkpoints:refresh-checkpoints}")
+    private String checkpointsContainerName;
+
     @Bean
     public CosmosAsyncClient cosmosAsyncClient() {
         log.info("Initializing Cosmos DB client for endpoint: {}", endpoint);
@@ -47,7 +54,7 @@ public class CosmosDbConfig {
                 .endpoint(endpoint)
                 .key(key)
                 .consistencyLevel(getConsistencyLevel())
-                .contentResponseOnWriteEnabled(true);
+                .contentResponseOnWriteEnabled(false);
 
         // Configurar regiões preferenciais
         if (!preferredRegions.isEmpty()) {
@@ -91,6 +98,9 @@ public class CosmosDbConfig {
 
         // Container de accounts
         createAccountsContainer(database);
+
+        // Container de checkpoints da varredura de atualização
+        createCheckpointsContainer(database);
     }
 
     private void createAccountsContainer(CosmosAsyncDatabase database) {
@@ -104,6 +114,9 @@ public class CosmosDbConfig {
             // TTL padrão de 30 dias
             containerProperties.setDefaultTimeToLiveInSeconds(30 * 24 * 60 * 60);
 
+            // Índices compostos para o keyset (lastUpdated, id) da varredura de atualização
+            containerProperties.setIndexingPolicy(accountsIndexingPolicy());
+
             // Throughput com autoscale
             ThroughputProperties throughput = ThroughputProperties.createAutoscaledThroughput(4000);
 
@@ -119,6 +132,41 @@ public class CosmosDbConfig {
         }
     }
 
+    private IndexingPolicy accountsIndexingPolicy() {
+        IndexingPolicy indexingPolicy = new IndexingPolicy();
+        indexingPolicy.setIncludedPaths(List.of(new IncludedPath("/*")));
+        indexingPolicy.setCompositeIndexes(List.of(
+                List.of(ascending("/lastUpdated"), ascending("/id")),
+                List.of(ascending("/status"), ascending("/lastUpdated"), ascending("/id")),
+                List.of(ascending("/shard"), ascending("/lastUpdated"), ascending("/id"))
+        ));
+        return indexingPolicy;
+    }
+
+    private CompositePath ascending(String path) {
+        CompositePath compositePath = new CompositePath();
+        compositePath.setPath(path);
+        compositePath.setOrder(CompositePathSortOrder.ASCENDING);
+        return compositePath;
+    }
+
+    private void createCheckpointsContainer(CosmosAsyncDatabase database) {
+        try {
+            CosmosContainerProperties containerProperties =
+                    new CosmosContainerProperties(checkpointsContainerName, "/id");
+
+            database.createContainerIfNotExists(containerProperties)
+                    .doOnSuccess(response ->
+                            log.info("Container {} is ready", checkpointsContainerName))
+                    .doOnError(error ->
+                            log.error("Failed to create container {}", checkpointsContainerName, error))
+                    .block(Duration.ofSeconds(30));
+
+        } catch (Exception e) {
+            log.error("Error creating container {}", checkpointsContainerName, e);
+        }
+    }
+
     private ConsistencyLevel getConsistencyLevel() {
         try {
             return ConsistencyLevel.valueOf(consistencyLevel.toUpperCase());
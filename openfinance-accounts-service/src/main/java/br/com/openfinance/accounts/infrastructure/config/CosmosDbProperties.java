@@ -42,6 +42,7 @@ public class CosmosDbProperties {
     @Data
     public static class Container {
         private String accounts = "accounts";
+        private String checkpoints = "refresh-checkpoints";
         private int defaultTtlDays = 30;
         private int autoscaleMaxThroughput = 4000;
     }
@@ -2,12 +2,14 @@
 package br.com.openfinance.accounts.infrastructure.config;
 
 import br.com.openfinance.accounts.application.event.AccountUpdateEvent;
+import br.com.openfinance.accounts.application.event.ConsentUpdateEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.reactive.ReactiveKafkaConsumerTemplate;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import reactor.kafka.receiver.ReceiverOptions;
 
@@ -31,9 +33,12 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.max-poll-records:500}")
     private Integer maxPollRecords;
 
+    @Value("${openfinance.accounts.on-demand.consent-listener.max-deferred-commits:256}")
+    private int consentMaxDeferredCommits;
+
     @Bean
     public ReactiveKafkaConsumerTemplate<String, AccountUpdateEvent> reactiveKafkaConsumerTemplate() {
-        Map<String, Object> props = consumerProps();
+        Map<String, Object> props = consumerProps(AccountUpdateEvent.class);
 
         ReceiverOptions<String, AccountUpdateEvent> receiverOptions =
                 ReceiverOptions.<String, AccountUpdateEvent>create(props)
@@ -44,14 +49,34 @@ public class KafkaConsumerConfig {
         return new ReactiveKafkaConsumerTemplate<>(receiverOptions);
     }
 
-    private Map<String, Object> consumerProps() {
+    @Bean
+    public ReactiveKafkaConsumerTemplate<String, ConsentUpdateEvent> consentUpdatesConsumerTemplate() {
+        Map<String, Object> props = consumerProps(ConsentUpdateEvent.class);
+
+        ReceiverOptions<String, ConsentUpdateEvent> receiverOptions =
+                ReceiverOptions.<String, ConsentUpdateEvent>create(props)
+                        .subscription(Collections.singleton("consent-updates"))
+                        .commitBatchSize(100)
+                        .commitInterval(Duration.ofSeconds(5))
+                        // O listener processa em paralelo e confirma fora de ordem; o receiver só
+                        // commita até o primeiro offset ainda pendente de cada partição e pausa o
+                        // consumo quando acumula confirmações adiadas demais
+                        .maxDeferredCommits(consentMaxDeferredCommits);
+
+        return new ReactiveKafkaConsumerTemplate<>(receiverOptions);
+    }
+
+    private Map<String, Object> consumerProps(Class<?> valueType) {
         Map<String, Object> props = new HashMap<>();
 
         // Configurações básicas
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        // Registro malformado vira valor null em vez de exceção no poll, que travaria o consumidor
+        // no mesmo offset a cada nova assinatura
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
 
         // Configurações de consumo
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
@@ -65,7 +90,7 @@ public class KafkaConsumerConfig {
 
         // Configurações do JsonDeserializer
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "br.com.openfinance.accounts.application.event");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, AccountUpdateEvent.class);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, valueType);
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
 
         return props;
@@ -27,7 +27,7 @@ public class LocalCosmosDbConfig {
                 .endpoint(EMULATOR_ENDPOINT)
                 .key(EMULATOR_KEY)
                 .consistencyLevel(ConsistencyLevel.SESSION)
-                .contentResponseOnWriteEnabled(true)
+                .contentResponseOnWriteEnabled(false)
                 .gatewayMode() // Emulador funciona melhor com Gateway mode
                 .buildAsyncClient();
     }
@@ -0,0 +1,53 @@
+package br.com.openfinance.accounts.infrastructure.config;
+
+import br.com.openfinance.core.client.AdaptiveConcurrencyLimiter;
+import br.com.openfinance.core.config.InstitutionClientProperties;
+import br.com.openfinance.core.processor.ParallelProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ProcessorConfig {
+
+    @Value("${openfinance.accounts.update.parallelism:100}")
+    private int parallelism;
+
+    @Value("${openfinance.accounts.update.lookahead:2000}")
+    private int lookahead;
+
+    @Value("${openfinance.accounts.update.timeout:30}")
+    private int timeoutSeconds;
+
+    // Chamadas simultâneas que uma conta faz à instituição (detalhes, saldo e limites em paralelo)
+    @Value("${openfinance.accounts.update.calls-per-account:3}")
+    private int callsPerAccount;
+
+    @Value("${openfinance.accounts.on-demand.reserved-share:0.2}")
+    private double onDemandReservedShare;
+
+    // Criado uma vez: o limite de contas em atualização vale para todas as execuções do pod.
+    // Por instituição, acompanha o limite adaptativo do cliente, convertido de chamadas para contas:
+    // banco que está estrangulando recebe menos contas ao mesmo tempo, e a vaga vai para outro banco.
+    // A varredura não ocupa a fatia reservada: ela fica para as atualizações sob demanda
+    @Bean
+    public ParallelProcessor accountRefreshProcessor(
+            MeterRegistry meterRegistry,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            InstitutionClientProperties institutionProperties) {
+
+        return new ParallelProcessor(
+                "account-refresh",
+                parallelism,
+                lookahead,
+                onDemandReservedShare,
+                Duration.ofSeconds(timeoutSeconds),
+                // Chamado com o lock do scheduler: só lê o limite, nunca cria
+                institutionId -> Math.max(1, concurrencyLimiter.currentLimit(
+                        institutionId, institutionProperties.maxConcurrentCallsFor(institutionId)) / callsPerAccount),
+                meterRegistry);
+    }
+}
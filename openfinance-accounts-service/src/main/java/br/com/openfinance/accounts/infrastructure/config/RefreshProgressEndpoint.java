@@ -0,0 +1,32 @@
+package br.com.openfinance.accounts.infrastructure.config;
+
+import br.com.openfinance.accounts.application.service.AccountUpdateOrchestrator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/refresh-progress: progresso da execução atual (ou da última) neste pod
+@Component
+@Endpoint(id = "refresh-progress")
+@RequiredArgsConstructor
+public class RefreshProgressEndpoint {
+
+    private final AccountUpdateOrchestrator orchestrator;
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        orchestrator.currentRun().ifPresentOrElse(run -> {
+            body.put("executionId", run.getExecutionId());
+            body.put("status", run.getStatus());
+            body.put("startTime", run.getStartTime());
+            body.put("progress", run.getProgress());
+            body.put("institutions", run.getInstitutionStats());
+        }, () -> body.put("status", "IDLE"));
+        return body;
+    }
+}
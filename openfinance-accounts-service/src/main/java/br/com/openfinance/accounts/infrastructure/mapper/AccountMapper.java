@@ -27,6 +27,7 @@ public interface AccountMapper {
     @Mapping(target = "lastUpdated", ignore = true)
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "partitionKey", ignore = true)
+    @Mapping(target = "shard", ignore = true)
     @Mapping(source = "type", target = "type", qualifiedByName = "enumToString")
     @Mapping(source = "compeCode", target = "compeCode")
     @Mapping(source = "branchCode", target = "branchCode")
@@ -0,0 +1,91 @@
+package br.com.openfinance.accounts.infrastructure.messaging;
+
+import br.com.openfinance.accounts.application.event.ConsentUpdateEvent;
+import br.com.openfinance.accounts.application.service.AccountRefreshService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.reactive.ReactiveKafkaConsumerTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+// Consentimento autorizado dispara a atualização das contas do cliente na faixa prioritária,
+// em vez de esperar a próxima varredura
+@Slf4j
+@Component
+public class ConsentUpdateListener implements DisposableBean {
+
+    private final ReactiveKafkaConsumerTemplate<String, ConsentUpdateEvent> consumerTemplate;
+    private final AccountRefreshService refreshService;
+    private final boolean enabled;
+    private final int concurrency;
+
+    private volatile Disposable subscription;
+
+    public ConsentUpdateListener(
+            ReactiveKafkaConsumerTemplate<String, ConsentUpdateEvent> consumerTemplate,
+            AccountRefreshService refreshService,
+            @Value("${openfinance.accounts.on-demand.consent-listener.enabled:true}") boolean enabled,
+            @Value("${openfinance.accounts.on-demand.consent-listener.concurrency:16}") int concurrency) {
+
+        this.consumerTemplate = consumerTemplate;
+        this.refreshService = refreshService;
+        this.enabled = enabled;
+        this.concurrency = concurrency;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Consent update listener disabled");
+            return;
+        }
+        subscription = consumerTemplate.receive()
+                // O offset só é confirmado depois da atualização, com ou sem sucesso. As confirmações
+                // chegam fora de ordem; o maxDeferredCommits do receiver segura o commit até os
+                // offsets anteriores da partição também terminarem
+                .flatMap(record -> {
+                    if (record.value() == null) {
+                        log.warn("Skipping unreadable consent update at {}-{} offset {}",
+                                record.topic(), record.partition(), record.offset());
+                    }
+                    return handle(record.value())
+                            .doFinally(signal -> record.receiverOffset().acknowledge());
+                }, concurrency)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(signal -> log.warn("Consent update consumer failed, resubscribing: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    private Mono<Void> handle(ConsentUpdateEvent event) {
+        if (event == null || !event.isAuthorised() || event.getClientId() == null) {
+            return Mono.empty();
+        }
+        return refreshService.refreshClient(event.getClientId(), event.getInstitutionId())
+                .count()
+                .doOnNext(count -> log.info("Consent {} authorised: refreshed {} accounts of client {}",
+                        event.getConsentId(), count, event.getClientId()))
+                .onErrorResume(error -> {
+                    log.error("Failed to refresh accounts for consent {}: {}",
+                            event.getConsentId(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+}
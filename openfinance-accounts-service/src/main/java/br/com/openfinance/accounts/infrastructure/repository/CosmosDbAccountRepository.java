@@ -1,51 +1,180 @@
 package br.com.openfinance.accounts.infrastructure.repository;
 
 import br.com.openfinance.accounts.domain.entity.Account;
+import br.com.openfinance.accounts.domain.entity.AccountKey;
+import br.com.openfinance.accounts.domain.entity.AccountSaveResult;
+import br.com.openfinance.accounts.domain.entity.RefreshCheckpoint;
 import br.com.openfinance.accounts.domain.port.AccountRepository;
 import com.azure.cosmos.CosmosAsyncClient;
 import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkExecutionOptions;
+import com.azure.cosmos.models.CosmosBulkItemRequestOptions;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosItemIdentity;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.CosmosItemRequestOptions;
 import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.FeedResponse;
 import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 @Slf4j
 @Repository
 public class CosmosDbAccountRepository implements AccountRepository {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String DUE_FOR_UPDATE_FILTER = """
+            WHERE c.status = 'ACTIVE'
+            AND (c.lastUpdated < DateTimeAdd('hh', -12, GetCurrentDateTime())
+                 OR c.lastUpdated = null)
+            """;
+
     private final CosmosAsyncContainer container;
 
+    private final int bulkMicroBatchSize;
+    private final Duration bulkFlushInterval;
+    private final int bulkConcurrency;
+
     public CosmosDbAccountRepository(
             CosmosAsyncClient cosmosClient,
             @Value("${azure.cosmos.database}") String databaseName,
-            @Value("${azure.cosmos.container.accounts}") String containerName) {
+            @Value("${azure.cosmos.container.accounts}") String containerName,
+            @Value("${azure.cosmos.bulk.micro-batch-size:100}") int bulkMicroBatchSize,
+            @Value("${azure.cosmos.bulk.flush-interval-ms:200}") int bulkFlushIntervalMs,
+            @Value("${azure.cosmos.bulk.concurrency:4}") int bulkConcurrency) {
 
         this.container = cosmosClient
                 .getDatabase(databaseName)
                 .getContainer(containerName);
+        this.bulkMicroBatchSize = bulkMicroBatchSize;
+        this.bulkFlushInterval = Duration.ofMillis(bulkFlushIntervalMs);
+        this.bulkConcurrency = bulkConcurrency;
     }
 
     @Override
     public Mono<Account> save(Account account) {
-        return container.upsertItem(account)
-                .map(response -> response.getItem())
+        assignShard(account);
+        return container.upsertItem(account, new PartitionKey(account.getPartitionKey()), new CosmosItemRequestOptions())
+                .thenReturn(account)
                 .doOnSuccess(saved -> log.debug("Account {} saved successfully", saved.getId()))
                 .doOnError(error -> log.error("Error saving account {}", account.getId(), error));
     }
 
+    @Override
+    public Flux<AccountSaveResult> saveAll(Flux<Account> accounts) {
+        CosmosBulkExecutionOptions options = new CosmosBulkExecutionOptions();
+        options.setMaxMicroBatchSize(bulkMicroBatchSize);
+
+        CosmosBulkItemRequestOptions itemOptions = new CosmosBulkItemRequestOptions()
+                .setContentResponseOnWriteEnabled(false);
+
+        return accounts
+                .doOnNext(this::assignShard)
+                // Variante justa: com todas as chamadas de bulk ocupadas o timer não emite sem demanda
+                // (a não justa falha com "lack of requests"); o buffer espera e a origem é segurada
+                .bufferTimeout(bulkMicroBatchSize, bulkFlushInterval, true)
+                .flatMap(chunk -> {
+                    // Operações da mesma partição ficam contíguas no lote enviado ao executor
+                    List<CosmosItemOperation> operations = chunk.stream()
+                            .sorted(Comparator.comparing(Account::getPartitionKey,
+                                    Comparator.nullsFirst(Comparator.naturalOrder())))
+                            .map(account -> CosmosBulkOperations.getUpsertItemOperation(
+                                    account, new PartitionKey(account.getPartitionKey()), itemOptions, account))
+                            .toList();
+
+                    return container.<Account>executeBulkOperations(Flux.fromIterable(operations), options);
+                }, bulkConcurrency)
+                .map(this::toSaveResult);
+    }
+
+    private AccountSaveResult toSaveResult(CosmosBulkOperationResponse<Account> response) {
+        Account account = response.getOperation().getContext();
+        CosmosBulkItemResponse itemResponse = response.getResponse();
+
+        if (response.getException() != null) {
+            log.error("Bulk upsert failed for account {}: {}", account.getId(), response.getException().getMessage());
+            int statusCode = response.getException() instanceof CosmosException cosmosException
+                    ? cosmosException.getStatusCode()
+                    : 0;
+            return AccountSaveResult.failure(account, statusCode, response.getException().getMessage());
+        }
+
+        if (!itemResponse.isSuccessStatusCode()) {
+            log.error("Bulk upsert rejected for account {} with status {}/{}",
+                    account.getId(), itemResponse.getStatusCode(), itemResponse.getSubStatusCode());
+            return AccountSaveResult.failure(account, itemResponse.getStatusCode(),
+                    "Bulk upsert rejected with status " + itemResponse.getStatusCode());
+        }
+
+        return AccountSaveResult.success(account, itemResponse.getStatusCode(), itemResponse.getRequestCharge());
+    }
+
+    private void assignShard(Account account) {
+        if (account.getShard() == null && account.getPartitionKey() != null) {
+            // Documentos anteriores ao shard recebem o valor na próxima gravação
+            account.setShard(Account.shardOf(account.getPartitionKey()));
+        }
+    }
+
     @Override
     public Mono<Account> findById(String id) {
-        return container.readItem(id, new PartitionKey(id), Account.class)
+        // Sem a partition key não há leitura pontual: consulta cross-partition pelo id
+        SqlQuerySpec query = new SqlQuerySpec(
+                "SELECT * FROM c WHERE c.id = @id",
+                List.of(new SqlParameter("@id", id)));
+
+        return container.queryItems(query, new CosmosQueryRequestOptions(), Account.class)
+                .byPage()
+                .flatMap(response -> Flux.fromIterable(response.getResults()))
+                .next()
+                .doOnError(error -> log.error("Error finding account by id {}", id, error));
+    }
+
+    @Override
+    public Mono<Account> findById(String id, String partitionKey) {
+        return container.readItem(id, new PartitionKey(partitionKey), Account.class)
                 .map(response -> response.getItem())
+                .onErrorResume(CosmosException.class, error -> error.getStatusCode() == 404
+                        ? Mono.empty()
+                        : Mono.error(error))
                 .doOnError(error -> log.error("Error finding account by id {}", id, error));
     }
 
+    @Override
+    public Flux<Account> findAllById(List<AccountKey> keys) {
+        if (keys.isEmpty()) {
+            return Flux.empty();
+        }
+
+        List<CosmosItemIdentity> identities = keys.stream()
+                .map(key -> new CosmosItemIdentity(new PartitionKey(key.getPartitionKey()), key.getId()))
+                .toList();
+
+        return container.readMany(identities, Account.class)
+                .flatMapIterable(FeedResponse::getResults)
+                .doOnError(error -> log.error("Error reading {} accounts", keys.size(), error));
+    }
+
     @Override
     public Flux<Account> findByClientId(String clientId) {
-        String query = "SELECT * FROM c WHERE c.clientId = @clientId";
+        SqlQuerySpec query = new SqlQuerySpec(
+                "SELECT * FROM c WHERE c.clientId = @clientId",
+                List.of(new SqlParameter("@clientId", clientId)));
 
         CosmosQueryRequestOptions options = new CosmosQueryRequestOptions();
         options.setQueryMetricsEnabled(true);
@@ -57,7 +186,9 @@ public class CosmosDbAccountRepository implements AccountRepository {
 
     @Override
     public Flux<Account> findByConsentId(String consentId) {
-        String query = "SELECT * FROM c WHERE c.consentId = @consentId";
+        SqlQuerySpec query = new SqlQuerySpec(
+                "SELECT * FROM c WHERE c.consentId = @consentId",
+                List.of(new SqlParameter("@consentId", consentId)));
 
         return container.queryItems(query, new CosmosQueryRequestOptions(), Account.class)
                 .byPage()
@@ -66,26 +197,78 @@ public class CosmosDbAccountRepository implements AccountRepository {
 
     @Override
     public Flux<Account> findAccountsForUpdate(int limit) {
-        String query = """
-            SELECT * FROM c 
-            WHERE c.status = 'ACTIVE' 
-            AND (c.lastUpdated < DateTimeAdd('hh', -12, GetCurrentDateTime()) 
-                 OR c.lastUpdated = null)
-            ORDER BY c.lastUpdated ASC
-            OFFSET 0 LIMIT @limit
-            """;
+        return findAccountsForUpdate(null, Math.min(limit, MAX_PAGE_SIZE))
+                .flatMapIterable(page -> page)
+                .take(limit);
+    }
+
+    @Override
+    public Flux<List<Account>> findAccountsForUpdate(RefreshCheckpoint from, int pageSize) {
+        int boundedPageSize = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
 
         CosmosQueryRequestOptions options = new CosmosQueryRequestOptions();
-        options.setMaxBufferedItemCount(limit);
+        options.setMaxBufferedItemCount(boundedPageSize);
 
-        return container.queryItems(query, options, Account.class)
+        // Uma página sendo processada e outra em pré-busca: o SDK só lê mais quando o consumidor pede
+        return container.queryItems(buildDueForUpdateQuery(from), options, Account.class)
+                .byPage(boundedPageSize)
+                .map(FeedResponse::getResults)
+                .filter(page -> !page.isEmpty())
+                .limitRate(2)
+                .doOnError(error -> log.error("Error streaming accounts due for update", error));
+    }
+
+    // Mesmo recorte da varredura (shard e posição do checkpoint), sem a ordenação
+    @Override
+    public Mono<Long> countAccountsForUpdate(RefreshCheckpoint from) {
+        List<SqlParameter> parameters = new ArrayList<>();
+        StringBuilder query = new StringBuilder("SELECT VALUE COUNT(1) FROM c\n")
+                .append(dueForUpdateFilter(from, parameters));
+
+        return container.queryItems(new SqlQuerySpec(query.toString(), parameters),
+                        new CosmosQueryRequestOptions(), Long.class)
                 .byPage()
-                .flatMap(response -> Flux.fromIterable(response.getResults()));
+                .next()
+                .map(response -> response.getResults().get(0));
+    }
+
+    private SqlQuerySpec buildDueForUpdateQuery(RefreshCheckpoint from) {
+        List<SqlParameter> parameters = new ArrayList<>();
+        StringBuilder query = new StringBuilder("SELECT * FROM c\n")
+                .append(dueForUpdateFilter(from, parameters))
+                .append("ORDER BY c.lastUpdated ASC, c.id ASC");
+        return new SqlQuerySpec(query.toString(), parameters);
+    }
+
+    private String dueForUpdateFilter(RefreshCheckpoint from, List<SqlParameter> parameters) {
+        StringBuilder query = new StringBuilder(DUE_FOR_UPDATE_FILTER);
+
+        if (from != null && from.getShard() != null) {
+            // Documentos ainda sem shard ficam com o dono do shard 0 até serem regravados
+            query.append(from.getShard() == 0
+                    ? "AND (c.shard = @shard OR NOT IS_DEFINED(c.shard))\n"
+                    : "AND c.shard = @shard\n");
+            parameters.add(new SqlParameter("@shard", from.getShard()));
+        }
+
+        if (from != null && from.isResumable()) {
+            // Keyset sobre (lastUpdated, id): retoma logo após a última conta confirmada
+            if (from.getLastUpdated() == null) {
+                query.append("AND ((c.lastUpdated = null AND c.id > @lastId) OR IS_STRING(c.lastUpdated))\n");
+            } else {
+                query.append("AND (c.lastUpdated > @lastUpdated OR (c.lastUpdated = @lastUpdated AND c.id > @lastId))\n");
+                parameters.add(new SqlParameter("@lastUpdated", from.getLastUpdated()));
+            }
+            parameters.add(new SqlParameter("@lastId", from.getLastAccountId()));
+        }
+        return query.toString();
     }
 
     @Override
     public Mono<Long> countByClientId(String clientId) {
-        String query = "SELECT VALUE COUNT(1) FROM c WHERE c.clientId = @clientId";
+        SqlQuerySpec query = new SqlQuerySpec(
+                "SELECT VALUE COUNT(1) FROM c WHERE c.clientId = @clientId",
+                List.of(new SqlParameter("@clientId", clientId)));
 
         return container.queryItems(query, new CosmosQueryRequestOptions(), Long.class)
                 .byPage()
@@ -0,0 +1,111 @@
+package br.com.openfinance.accounts.infrastructure.repository;
+
+import br.com.openfinance.accounts.domain.entity.RefreshCheckpoint;
+import br.com.openfinance.accounts.domain.exception.RefreshLeaseLostException;
+import br.com.openfinance.accounts.domain.port.RefreshCheckpointRepository;
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Slf4j
+@Repository
+public class CosmosDbRefreshCheckpointRepository implements RefreshCheckpointRepository {
+
+    private static final int CONFLICT = 409;
+    private static final int NOT_FOUND = 404;
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final CosmosAsyncContainer container;
+
+    public CosmosDbRefreshCheckpointRepository(
+            CosmosAsyncClient cosmosClient,
+            @Value("${azure.cosmos.database}") String databaseName,
+            @Value("${azure.cosmos.container.checkpoints:refresh-checkpoints}") String containerName) {
+
+        this.container = cosmosClient
+                .getDatabase(databaseName)
+                .getContainer(containerName);
+    }
+
+    @Override
+    public Mono<RefreshCheckpoint> findById(String checkpointId) {
+        return container.readItem(checkpointId, new PartitionKey(checkpointId), RefreshCheckpoint.class)
+                .map(response -> response.getItem())
+                .onErrorResume(CosmosException.class, error -> error.getStatusCode() == NOT_FOUND
+                        ? Mono.empty()
+                        : Mono.error(error))
+                .doOnError(error -> log.error("Error reading checkpoint {}", checkpointId, error));
+    }
+
+    @Override
+    public Flux<RefreshCheckpoint> findByScanId(String scanId) {
+        SqlQuerySpec query = new SqlQuerySpec(
+                "SELECT * FROM c WHERE c.scanId = @scanId",
+                List.of(new SqlParameter("@scanId", scanId)));
+
+        return container.queryItems(query, new CosmosQueryRequestOptions(), RefreshCheckpoint.class)
+                .byPage()
+                .flatMap(response -> Flux.fromIterable(response.getResults()))
+                .doOnError(error -> log.error("Error listing checkpoints for scan {}", scanId, error));
+    }
+
+    @Override
+    public Mono<RefreshCheckpoint> tryAcquire(RefreshCheckpoint checkpoint) {
+        Mono<CosmosItemResponse<RefreshCheckpoint>> write = checkpoint.getEtag() == null
+                ? container.createItem(checkpoint, new PartitionKey(checkpoint.getId()), new CosmosItemRequestOptions())
+                : conditionalReplace(checkpoint);
+
+        return write
+                .map(response -> withEtag(checkpoint, response))
+                .onErrorResume(CosmosException.class, error -> isLostRace(error)
+                        ? Mono.empty()
+                        : Mono.error(error))
+                .doOnNext(acquired -> log.debug("Lease {} acquired by {}", acquired.getId(), acquired.getOwner()));
+    }
+
+    @Override
+    public Mono<RefreshCheckpoint> save(RefreshCheckpoint checkpoint) {
+        Mono<CosmosItemResponse<RefreshCheckpoint>> write = checkpoint.getEtag() == null
+                ? container.upsertItem(checkpoint, new PartitionKey(checkpoint.getId()), new CosmosItemRequestOptions())
+                : conditionalReplace(checkpoint);
+
+        return write
+                .map(response -> withEtag(checkpoint, response))
+                .onErrorMap(CosmosException.class::isInstance, error -> isLostRace((CosmosException) error)
+                        ? new RefreshLeaseLostException(checkpoint.getId(), error)
+                        : error)
+                .doOnSuccess(saved -> log.debug("Checkpoint {} saved at {}/{}",
+                        saved.getId(), saved.getLastUpdated(), saved.getLastAccountId()))
+                .doOnError(error -> log.error("Error saving checkpoint {}", checkpoint.getId(), error));
+    }
+
+    private Mono<CosmosItemResponse<RefreshCheckpoint>> conditionalReplace(RefreshCheckpoint checkpoint) {
+        CosmosItemRequestOptions options = new CosmosItemRequestOptions();
+        options.setIfMatchETag(checkpoint.getEtag());
+
+        return container.replaceItem(checkpoint, checkpoint.getId(), new PartitionKey(checkpoint.getId()), options);
+    }
+
+    private RefreshCheckpoint withEtag(RefreshCheckpoint checkpoint, CosmosItemResponse<RefreshCheckpoint> response) {
+        checkpoint.setEtag(response.getETag());
+        return checkpoint;
+    }
+
+    private boolean isLostRace(CosmosException error) {
+        int status = error.getStatusCode();
+        return status == CONFLICT || status == PRECONDITION_FAILED || status == NOT_FOUND;
+    }
+}
@@ -0,0 +1,69 @@
+package br.com.openfinance.accounts.infrastructure.repository;
+
+import br.com.openfinance.accounts.domain.entity.Account;
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosAsyncDatabase;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosItemOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CosmosDbAccountRepositoryTest {
+
+    private final CosmosAsyncContainer container = mock(CosmosAsyncContainer.class);
+    private CosmosDbAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        CosmosAsyncClient client = mock(CosmosAsyncClient.class);
+        CosmosAsyncDatabase database = mock(CosmosAsyncDatabase.class);
+        when(client.getDatabase(anyString())).thenReturn(database);
+        when(database.getContainer(anyString())).thenReturn(container);
+
+        // Micro-lotes de 5, flush a cada 20ms e no máximo 2 chamadas de bulk em andamento
+        repository = new CosmosDbAccountRepository(client, "db", "accounts", 5, 20, 2);
+    }
+
+    @Test
+    void slowBulkCallsDoNotOverflowPartialBuffers() {
+        // Bulk lento (Cosmos devolvendo 429 e o SDK repetindo) enquanto as contas chegam aos poucos:
+        // o timer do buffer dispara com as vagas do flatMap todas ocupadas
+        when(container.executeBulkOperations(any(), any())).thenAnswer(invocation -> {
+            Flux<CosmosItemOperation> operations = invocation.getArgument(0);
+            return operations.map(CosmosDbAccountRepositoryTest::succeeded)
+                    .delaySubscription(Duration.ofMillis(300));
+        });
+
+        Flux<Account> accounts = Flux.range(0, 60)
+                .delayElements(Duration.ofMillis(3))
+                .map(i -> Account.create("client-" + i, "consent-" + i, "bank-" + (i % 3)));
+
+        StepVerifier.create(repository.saveAll(accounts))
+                .expectNextCount(60)
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CosmosBulkOperationResponse<Object> succeeded(CosmosItemOperation operation) {
+        CosmosBulkItemResponse itemResponse = mock(CosmosBulkItemResponse.class);
+        when(itemResponse.isSuccessStatusCode()).thenReturn(true);
+        when(itemResponse.getStatusCode()).thenReturn(200);
+
+        CosmosBulkOperationResponse<Object> response = mock(CosmosBulkOperationResponse.class);
+        when(response.getOperation()).thenReturn(operation);
+        when(response.getResponse()).thenReturn(itemResponse);
+        return response;
+    }
+}
@@ -55,9 +55,59 @@ resource "azurerm_cosmosdb_sql_container" "accounts" {
     excluded_path {
       path = "/\"_etag\"/?"
     }
+
+    composite_index {
+      index {
+        path  = "/lastUpdated"
+        order = "Ascending"
+      }
+      index {
+        path  = "/id"
+        order = "Ascending"
+      }
+    }
+
+    composite_index {
+      index {
+        path  = "/status"
+        order = "Ascending"
+      }
+      index {
+        path  = "/lastUpdated"
+        order = "Ascending"
+      }
+      index {
+        path  = "/id"
+        order = "Ascending"
+      }
+    }
+
+    composite_index {
+      index {
+        path  = "/shard"
+        order = "Ascending"
+      }
+      index {
+        path  = "/lastUpdated"
+        order = "Ascending"
+      }
+      index {
+        path  = "/id"
+        order = "Ascending"
+      }
+    }
   }
 
   unique_key {
     paths = ["/accountId", "/institutionId"]
   }
-}
\ No newline at end of file
+}
+
+resource "azurerm_cosmosdb_sql_container" "refresh_checkpoints" {
+  name                  = "refresh-checkpoints"
+  resource_group_name   = azurerm_resource_group.openfinance.name
+  account_name          = azurerm_cosmosdb_account.openfinance.name
+  database_name         = azurerm_cosmosdb_sql_database.openfinance.name
+  partition_key_path    = "/id"
+  partition_key_version = 2
+}
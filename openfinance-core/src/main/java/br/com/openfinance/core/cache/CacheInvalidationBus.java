@@ -0,0 +1,48 @@
+package br.com.openfinance.core.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Slf4j
+public class CacheInvalidationBus {
+
+    static final String CHANNEL = "openfinance:cache-invalidation";
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public CacheInvalidationBus(ReactiveRedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public Disposable subscribe(Consumer<String> onInvalidate) {
+        return redisTemplate.listenToChannel(CHANNEL)
+                .map(message -> String.valueOf(message.getMessage()))
+                .filter(payload -> !payload.startsWith(instanceId + "\n"))
+                .doOnNext(payload -> Arrays.stream(payload.split("\n")).skip(1).forEach(onInvalidate))
+                // Sem o canal os pods só dependem do TTL local; reconecta com backoff
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    public Mono<Void> publish(Collection<String> redisKeys) {
+        if (redisKeys.isEmpty()) {
+            return Mono.empty();
+        }
+        // Uma mensagem por lote: primeira linha é a origem, as demais são as chaves
+        String payload = instanceId + "\n" + String.join("\n", redisKeys);
+        return redisTemplate.convertAndSend(CHANNEL, payload)
+                .doOnError(error -> log.warn("Failed to publish cache invalidation: {}", error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+}
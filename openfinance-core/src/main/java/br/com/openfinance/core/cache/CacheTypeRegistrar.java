@@ -0,0 +1,7 @@
+package br.com.openfinance.core.cache;
+
+@FunctionalInterface
+public interface CacheTypeRegistrar {
+
+    void register(CacheTypeRegistry registry);
+}
@@ -0,0 +1,62 @@
+package br.com.openfinance.core.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CacheTypeRegistry {
+
+    // Ids fazem parte do formato gravado no Redis: nunca reutilizar nem renumerar
+    public static final short UNREGISTERED = 0;
+
+    private final TypeFactory typeFactory = TypeFactory.defaultInstance();
+    private final Map<Short, JavaType> typesById = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Short> idsByClass = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Short> listIdsByElement = new ConcurrentHashMap<>();
+
+    public CacheTypeRegistry register(int id, Class<?> type) {
+        short typeId = toTypeId(id);
+        bind(typeId, typeFactory.constructType(type));
+        idsByClass.put(type, typeId);
+        return this;
+    }
+
+    public CacheTypeRegistry registerList(int id, Class<?> elementType) {
+        short typeId = toTypeId(id);
+        bind(typeId, typeFactory.constructCollectionType(List.class, elementType));
+        listIdsByElement.put(elementType, typeId);
+        return this;
+    }
+
+    public short idOf(Object value) {
+        if (value instanceof List<?> list) {
+            if (list.isEmpty() || list.get(0) == null) {
+                return UNREGISTERED;
+            }
+            return listIdsByElement.getOrDefault(list.get(0).getClass(), UNREGISTERED);
+        }
+        return idsByClass.getOrDefault(value.getClass(), UNREGISTERED);
+    }
+
+    public JavaType typeOf(short id) {
+        return typesById.get(id);
+    }
+
+    private void bind(short id, JavaType type) {
+        JavaType previous = typesById.putIfAbsent(id, type);
+        if (previous != null && !previous.equals(type)) {
+            throw new IllegalStateException(
+                    "Cache type id " + id + " already registered for " + previous);
+        }
+    }
+
+    private static short toTypeId(int id) {
+        if (id <= UNREGISTERED || id > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Cache type id must be between 1 and " + Short.MAX_VALUE);
+        }
+        return (short) id;
+    }
+}
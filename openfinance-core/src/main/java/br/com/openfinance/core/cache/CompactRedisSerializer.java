@@ -0,0 +1,143 @@
+package br.com.openfinance.core.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    // 0xB7 nunca inicia um documento JSON, entao valores gravados pelo serializer antigo continuam legiveis
+    private static final byte MAGIC = (byte) 0xB7;
+    private static final byte FLAG_LZ4 = 0x01;
+    private static final int HEADER_SIZE = 4;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final CacheTypeRegistry registry;
+    private final int compressionThreshold;
+    private final ObjectMapper smileMapper;
+    private final GenericJackson2JsonRedisSerializer fallback;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    public CompactRedisSerializer(CacheTypeRegistry registry, int compressionThreshold) {
+        this.registry = registry;
+        this.compressionThreshold = compressionThreshold;
+        this.smileMapper = new ObjectMapper(new SmileFactory())
+                .registerModule(new JavaTimeModule())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.fallback = jsonSerializer();
+
+        LZ4Factory lz4 = LZ4Factory.fastestInstance();
+        this.compressor = lz4.fastCompressor();
+        this.decompressor = lz4.fastDecompressor();
+    }
+
+    public static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        serializer.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        return serializer;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+
+        short typeId = registry.idOf(value);
+        byte[] payload = typeId == CacheTypeRegistry.UNREGISTERED
+                ? fallback.serialize(value)
+                : writeSmile(value);
+
+        if (compressionThreshold > 0 && payload.length >= compressionThreshold) {
+            byte[] compressed = compress(payload);
+            if (compressed.length + Integer.BYTES < payload.length) {
+                return ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES + compressed.length)
+                        .put(MAGIC)
+                        .put(FLAG_LZ4)
+                        .putShort(typeId)
+                        .putInt(payload.length)
+                        .put(compressed)
+                        .array();
+            }
+        }
+
+        return ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .put(MAGIC)
+                .put((byte) 0)
+                .putShort(typeId)
+                .put(payload)
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE) {
+            throw new SerializationException("Truncated cache value: " + bytes.length + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        byte flags = buffer.get();
+        short typeId = buffer.getShort();
+
+        byte[] payload;
+        if ((flags & FLAG_LZ4) != 0) {
+            int originalLength = buffer.getInt();
+            payload = new byte[originalLength];
+            decompressor.decompress(bytes, buffer.position(), payload, 0, originalLength);
+        } else {
+            payload = new byte[buffer.remaining()];
+            buffer.get(payload);
+        }
+
+        if (typeId == CacheTypeRegistry.UNREGISTERED) {
+            return fallback.deserialize(payload);
+        }
+
+        JavaType type = registry.typeOf(typeId);
+        if (type == null) {
+            throw new SerializationException("Unknown cache type id " + typeId);
+        }
+        try {
+            return smileMapper.readValue(payload, type);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read cache value of type " + type, e);
+        }
+    }
+
+    private byte[] writeSmile(Object value) {
+        try {
+            return smileMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value of type " + value.getClass(), e);
+        }
+    }
+
+    private byte[] compress(byte[] payload) {
+        byte[] buffer = new byte[compressor.maxCompressedLength(payload.length)];
+        int length = compressor.compress(payload, 0, payload.length, buffer, 0, buffer.length);
+        byte[] compressed = new byte[length];
+        System.arraycopy(buffer, 0, compressed, 0, length);
+        return compressed;
+    }
+}
@@ -0,0 +1,140 @@
+package br.com.openfinance.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Slf4j
+public class ReactiveCache {
+
+    @Getter
+    private final String name;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final Duration defaultTtl;
+
+    // L1 em memória (opcional) na frente do Redis; invalidado entre pods via pub/sub
+    private final Cache<String, Object> localCache;
+    private final CacheInvalidationBus invalidationBus;
+
+    // Cargas em andamento por chave: misses concorrentes compartilham uma única ida à origem
+    private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public ReactiveCache(String name, ReactiveRedisTemplate<String, Object> redisTemplate, Duration defaultTtl) {
+        this(name, redisTemplate, defaultTtl, null, null);
+    }
+
+    public ReactiveCache(
+            String name,
+            ReactiveRedisTemplate<String, Object> redisTemplate,
+            Duration defaultTtl,
+            Cache<String, Object> localCache,
+            CacheInvalidationBus invalidationBus) {
+
+        this.name = name;
+        this.redisTemplate = redisTemplate;
+        this.defaultTtl = defaultTtl;
+        this.localCache = localCache;
+        this.invalidationBus = invalidationBus;
+    }
+
+    public <T> Mono<T> get(String key, Class<T> type, Supplier<Mono<T>> loader) {
+        return get(key, type, loader, value -> defaultTtl);
+    }
+
+    // Tudo na assinatura, inclusive o L1: um Mono montado antes e assinado depois (ou reassinado
+    // num retry) não devolve o valor que estava no L1 quando foi montado
+    public <T> Mono<T> get(String key, Class<T> type, Supplier<Mono<T>> loader, Function<? super T, Duration> ttl) {
+        String redisKey = redisKey(key);
+
+        return Mono.defer(() -> {
+                    Object local = localCache != null ? localCache.getIfPresent(key) : null;
+                    if (type.isInstance(local)) {
+                        return Mono.just(local);
+                    }
+                    return inFlight.computeIfAbsent(redisKey, k -> redisTemplate.opsForValue().get(k)
+                            .onErrorResume(error -> {
+                                log.warn("Failed to read cache entry {}: {}", k, error.getMessage());
+                                return Mono.empty();
+                            })
+                            .switchIfEmpty(Mono.defer(() -> loader.get()
+                                    .flatMap(value -> write(k, value, ttl.apply(value)).thenReturn(value))))
+                            .doOnNext(value -> putLocal(key, value))
+                            .doFinally(signal -> inFlight.remove(k))
+                            .cast(Object.class)
+                            .cache());
+                })
+                .filter(type::isInstance)
+                .map(type::cast);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<List<T>> getList(String key, Class<T> elementType, Supplier<Flux<T>> loader) {
+        return get(key, List.class, () -> loader.get().collectList().filter(list -> !list.isEmpty()).map(List.class::cast))
+                .map(list -> (List<T>) list);
+    }
+
+    public Mono<Boolean> put(String key, Object value) {
+        return put(key, value, defaultTtl);
+    }
+
+    public Mono<Boolean> put(String key, Object value, Duration ttl) {
+        return write(redisKey(key), value, ttl)
+                .flatMap(written -> publishInvalidation(List.of(key))
+                        .doOnSuccess(ignored -> putLocal(key, value))
+                        .thenReturn(written));
+    }
+
+    public Mono<Boolean> evict(String key) {
+        return Mono.fromRunnable(() -> invalidateLocal(key))
+                .then(Mono.defer(() -> redisTemplate.delete(redisKey(key))))
+                .flatMap(deleted -> publishInvalidation(List.of(key)).thenReturn(deleted > 0));
+    }
+
+    public void putLocal(String key, Object value) {
+        if (localCache != null) {
+            localCache.put(key, value);
+        }
+    }
+
+    public void invalidateLocal(String key) {
+        if (localCache != null) {
+            localCache.invalidate(key);
+        }
+    }
+
+    // Para quem grava no Redis por fora deste cache (ex.: write-through em pipeline)
+    public Mono<Void> publishInvalidation(Collection<String> keys) {
+        if (invalidationBus == null || keys.isEmpty()) {
+            return Mono.empty();
+        }
+        return invalidationBus.publish(keys.stream().map(this::redisKey).toList());
+    }
+
+    private Mono<Boolean> write(String redisKey, Object value, Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            return Mono.just(false);
+        }
+        return redisTemplate.opsForValue().set(redisKey, value, ttl)
+                // Falha de cache não deve derrubar a leitura que já tem o valor
+                .onErrorResume(error -> {
+                    log.warn("Failed to write cache entry {}: {}", redisKey, error.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    private String redisKey(String key) {
+        // Mesmo formato do RedisCacheManager (CacheKeyPrefix.simple)
+        return name + "::" + key;
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.openfinance.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ReactiveCacheManager implements DisposableBean {
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final Duration defaultTtl;
+    private final Set<String> localCacheNames;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final CacheInvalidationBus invalidationBus;
+    private final Disposable invalidationSubscription;
+    private final Map<String, ReactiveCache> caches = new ConcurrentHashMap<>();
+
+    public ReactiveCacheManager(ReactiveRedisTemplate<String, Object> redisTemplate, Duration defaultTtl) {
+        this(redisTemplate, defaultTtl, Set.of(), 0, Duration.ZERO);
+    }
+
+    public ReactiveCacheManager(
+            ReactiveRedisTemplate<String, Object> redisTemplate,
+            Duration defaultTtl,
+            Set<String> localCacheNames,
+            long localMaxSize,
+            Duration localTtl) {
+
+        this.redisTemplate = redisTemplate;
+        this.defaultTtl = defaultTtl;
+        this.localCacheNames = localCacheNames;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+
+        if (localCacheNames.isEmpty()) {
+            this.invalidationBus = null;
+            this.invalidationSubscription = null;
+        } else {
+            this.invalidationBus = new CacheInvalidationBus(redisTemplate);
+            this.invalidationSubscription = invalidationBus.subscribe(this::invalidateLocal);
+        }
+    }
+
+    public ReactiveCache getCache(String name) {
+        return caches.computeIfAbsent(name, key -> localCacheNames.contains(key)
+                ? new ReactiveCache(key, redisTemplate, defaultTtl, newLocalCache(), invalidationBus)
+                : new ReactiveCache(key, redisTemplate, defaultTtl));
+    }
+
+    private Cache<String, Object> newLocalCache() {
+        // Caffeine limitado por tamanho usa W-TinyLFU na admissão/evicção
+        return Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+    }
+
+    private void invalidateLocal(String redisKey) {
+        int separator = redisKey.indexOf("::");
+        if (separator < 0) {
+            return;
+        }
+        ReactiveCache cache = caches.get(redisKey.substring(0, separator));
+        if (cache != null) {
+            cache.invalidateLocal(redisKey.substring(separator + 2));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+    }
+}
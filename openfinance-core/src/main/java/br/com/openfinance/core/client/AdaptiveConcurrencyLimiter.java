@@ -0,0 +1,70 @@
+package br.com.openfinance.core.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxQueued;
+    private final Map<String, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${openfinance.client.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${openfinance.client.concurrency.min-limit:2}") int minLimit,
+            @Value("${openfinance.client.concurrency.max-queued:10000}") int maxQueued) {
+
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxQueued = maxQueued;
+    }
+
+    public AdaptiveLimit limitFor(String institutionId, int maxLimit) {
+        AdaptiveLimit existing = limits.get(institutionId);
+        if (existing != null) {
+            return existing;
+        }
+        return limits.computeIfAbsent(institutionId, key -> register(key, maxLimit));
+    }
+
+    // Só leitura: não cria o limite nem registra gauges. Antes da primeira chamada à instituição
+    // vale o limite com que ela vai começar
+    public int currentLimit(String institutionId, int maxLimit) {
+        AdaptiveLimit existing = limits.get(institutionId);
+        if (existing != null) {
+            return existing.getLimit();
+        }
+        return Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    private AdaptiveLimit register(String institutionId, int maxLimit) {
+        AdaptiveLimit limit = new AdaptiveLimit(institutionId, initialLimit, minLimit, maxLimit, maxQueued);
+        Tags tags = Tags.of("institution", institutionId);
+
+        Gauge.builder("openfinance.client.concurrency.limit", limit, AdaptiveLimit::getLimit)
+                .description("Adaptive in-flight limit per institution")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("openfinance.client.concurrency.inflight", limit, AdaptiveLimit::getInFlight)
+                .description("Requests in flight per institution")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("openfinance.client.concurrency.queued", limit, AdaptiveLimit::getQueued)
+                .description("Requests waiting for a permit per institution")
+                .tags(tags)
+                .register(meterRegistry);
+
+        return limit;
+    }
+}
@@ -0,0 +1,212 @@
+package br.com.openfinance.core.client;
+
+import br.com.openfinance.core.processor.Lane;
+import lombok.Getter;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdaptiveLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double LONG_RTT_ALPHA = 0.01;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    @Getter
+    private final String key;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    // Atendida antes da fila do lote: uma chamada prioritária espera só o próximo permit liberado
+    private final Queue<Waiter> priorityWaiters = new ConcurrentLinkedQueue<>();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long lastDecreaseNanos;
+
+    AdaptiveLimit(String key, int initialLimit, int minLimit, int maxLimit, int maxQueued) {
+        this.key = key;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.estimatedLimit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public Mono<Permit> acquire() {
+        return acquire(Lane.BULK);
+    }
+
+    public Mono<Permit> acquire(Lane lane) {
+        Queue<Waiter> queue = lane == Lane.PRIORITY ? priorityWaiters : waiters;
+        return Mono.create(sink -> {
+            if (tryAcquire()) {
+                sink.success(new Permit());
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                sink.error(new ConcurrencyLimitExceededException(key, limit));
+                return;
+            }
+            Waiter waiter = new Waiter(sink, queue);
+            queue.add(waiter);
+            sink.onCancel(waiter::cancel);
+            // Um permit pode ter sido liberado entre o tryAcquire e o enfileiramento
+            drain();
+        });
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while ((!priorityWaiters.isEmpty() || !waiters.isEmpty()) && tryAcquire()) {
+            Waiter waiter = priorityWaiters.poll();
+            if (waiter == null) {
+                waiter = waiters.poll();
+            }
+            if (waiter == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            queued.decrementAndGet();
+            waiter.grant(new Permit());
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos = longRttNanos * (1 - LONG_RTT_ALPHA) + rttNanos * LONG_RTT_ALPHA;
+        }
+        // Latência caiu de patamar: deixa a referência de longo prazo acompanhar
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Sem demanda suficiente a latência não diz nada sobre a capacidade da instituição
+        if (inFlightAtStart < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        update(estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private synchronized void onDropped(long nowNanos) {
+        // No máximo uma redução por RTT, senão uma rajada de 429 derruba o limite ao mínimo
+        if (nowNanos - lastDecreaseNanos < (long) longRttNanos) {
+            return;
+        }
+        lastDecreaseNanos = nowNanos;
+        update(estimatedLimit * BACKOFF_RATIO);
+    }
+
+    private void update(double newLimit) {
+        // Quem aguarda é liberado pelo drain() do release() que trouxe a amostra
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    private final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private final Queue<Waiter> queue;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile Permit permit;
+
+        private Waiter(MonoSink<Permit> sink, Queue<Waiter> queue) {
+            this.sink = sink;
+            this.queue = queue;
+        }
+
+        void grant(Permit granted) {
+            permit = granted;
+            if (done.compareAndSet(false, true)) {
+                sink.success(granted);
+            } else {
+                granted.ignore();
+            }
+        }
+
+        void cancel() {
+            if (done.compareAndSet(false, true)) {
+                if (queue.remove(this)) {
+                    queued.decrementAndGet();
+                }
+            } else {
+                // Cancelado enquanto o permit era entregue: devolve para não vazar capacidade
+                Permit granted = permit;
+                if (granted != null) {
+                    granted.ignore();
+                }
+            }
+        }
+    }
+
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart = inFlight.get();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void success() {
+            if (released.compareAndSet(false, true)) {
+                onSample(System.nanoTime() - startNanos, inFlightAtStart);
+                release();
+            }
+        }
+
+        public void dropped() {
+            if (released.compareAndSet(false, true)) {
+                onDropped(System.nanoTime());
+                release();
+            }
+        }
+
+        public void ignore() {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        }
+    }
+}
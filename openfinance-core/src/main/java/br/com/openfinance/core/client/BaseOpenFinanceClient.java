@@ -1,52 +1,163 @@
 package br.com.openfinance.core.client;
 
-import br.com.openfinance.core.security.OAuth2TokenProvider;
+import br.com.openfinance.core.processor.Lane;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
 import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import io.github.resilience4j.reactor.retry.RetryOperator;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
 @Slf4j
 public abstract class BaseOpenFinanceClient {
 
-    protected final WebClient webClient;
-    protected final OAuth2TokenProvider tokenProvider;
-    protected final CircuitBreaker circuitBreaker;
+    protected final InstitutionClientRegistry clientRegistry;
+    protected final CircuitBreakerRegistry circuitBreakerRegistry;
+    protected final BulkheadRegistry bulkheadRegistry;
+    protected final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    protected final InstitutionThrottle throttle;
+    protected final InstitutionRateLimiter rateLimiter;
     protected final Retry retry;
+    protected final String serviceName;
+
+    private final Map<String, InstitutionGuards> guards = new ConcurrentHashMap<>();
 
     protected BaseOpenFinanceClient(
-            WebClient.Builder webClientBuilder,
-            OAuth2TokenProvider tokenProvider,
+            InstitutionClientRegistry clientRegistry,
             CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            InstitutionThrottle throttle,
+            InstitutionRateLimiter rateLimiter,
             RetryRegistry retryRegistry,
-            String baseUrl,
             String serviceName) {
 
-        this.webClient = webClientBuilder
-                .baseUrl(baseUrl)
-                .build();
-
-        this.tokenProvider = tokenProvider;
-        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(serviceName);
+        this.clientRegistry = clientRegistry;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.throttle = throttle;
+        this.rateLimiter = rateLimiter;
         this.retry = retryRegistry.retry(serviceName);
+        this.serviceName = serviceName;
+    }
+
+    protected <T> Mono<T> executeRequest(
+            String institutionId,
+            String endpoint,
+            BiFunction<WebClient, String, Mono<T>> request) {
+
+        return Mono.deferContextual(context -> {
+                    // Chamadas sob demanda furam as filas do lote na cota e no limite de concorrência
+                    Lane lane = Lane.current(context);
+                    InstitutionClient client = clientRegistry.get(institutionId);
+                    InstitutionGuards institutionGuards = guardsFor(client);
+                    ThrottleGate gate = institutionGuards.gate();
+
+                    return client.getToken()
+                            // Backoff e cota vêm antes do permit para não ocupar vaga enquanto esperam
+                            .flatMap(token -> gate.awaitOpen()
+                                    .then(rateLimiter.acquire(institutionId, endpoint, lane))
+                                    .then(withPermit(institutionGuards, lane, () -> request.apply(client.getWebClient(), token))))
+                            .doOnSuccess(response -> gate.onSuccess())
+                            .doOnError(WebClientResponseException.class, error -> {
+                                if (InstitutionThrottle.isThrottled(error)) {
+                                    throttle.onThrottled(institutionId, error);
+                                } else if (error instanceof WebClientResponseException.Unauthorized) {
+                                    // Token revogado antes da expiração: força nova emissão na próxima tentativa
+                                    client.invalidateToken();
+                                }
+                            })
+                            .transformDeferred(CircuitBreakerOperator.of(institutionGuards.circuitBreaker()));
+                })
+                .transformDeferred(RetryOperator.of(retry));
+    }
+
+    private <T> Mono<T> withPermit(InstitutionGuards institutionGuards, Lane lane, Supplier<Mono<T>> call) {
+        return Mono.usingWhen(
+                institutionGuards.limit().acquire(lane),
+                // Reconfere o backoff: a janela pode ter aberto enquanto a requisição aguardava na fila.
+                // O bulkhead fica dentro do limiter: quem aguarda na fila não ocupa vaga
+                permit -> institutionGuards.gate().awaitOpen()
+                        .then(Mono.defer(call).transformDeferred(BulkheadOperator.of(institutionGuards.bulkhead()))),
+                permit -> Mono.fromRunnable(permit::success),
+                (permit, error) -> Mono.fromRunnable(() -> {
+                    if (isOverload(error)) {
+                        permit.dropped();
+                    } else {
+                        permit.ignore();
+                    }
+                }),
+                permit -> Mono.fromRunnable(permit::ignore));
+    }
 
-        // Metrics
+    private InstitutionGuards guardsFor(InstitutionClient client) {
+        InstitutionGuards existing = guards.get(client.getInstitutionId());
+        if (existing != null) {
+            return existing;
+        }
+        return guards.computeIfAbsent(client.getInstitutionId(), institutionId -> createGuards(client));
+    }
+
+    private InstitutionGuards createGuards(InstitutionClient client) {
+        String institutionId = client.getInstitutionId();
+        String name = serviceName + ":" + institutionId;
+        Map<String, String> tags = Map.of("service", serviceName, "institution", institutionId);
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(
+                name, circuitBreakerRegistry.getDefaultConfig(), tags);
         circuitBreaker.getEventPublisher()
                 .onStateTransition(event ->
                         log.warn("Circuit breaker {} transitioned from {} to {}",
-                                serviceName, event.getStateTransition().getFromState(),
+                                name, event.getStateTransition().getFromState(),
                                 event.getStateTransition().getToState()));
+
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(
+                name,
+                BulkheadConfig.from(bulkheadRegistry.getDefaultConfig())
+                        .maxConcurrentCalls(client.getMaxConcurrentCalls())
+                        .build(),
+                tags);
+
+        AdaptiveLimit limit = concurrencyLimiter.limitFor(institutionId, client.getMaxConcurrentCalls());
+
+        ThrottleGate gate = throttle.gateFor(institutionId);
+
+        return new InstitutionGuards(circuitBreaker, bulkhead, limit, gate);
     }
 
-    protected <T> Mono<T> executeRequest(Mono<T> request) {
-        return tokenProvider.getToken()
-                .flatMap(token -> request)
-                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
-                .transformDeferred(RetryOperator.of(retry));
+    protected boolean isOverload(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return InstitutionThrottle.isThrottled(error) || status == 503;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException
+                    || cause instanceof ReadTimeoutException
+                    || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record InstitutionGuards(
+            CircuitBreaker circuitBreaker, Bulkhead bulkhead, AdaptiveLimit limit, ThrottleGate gate) {
     }
 }
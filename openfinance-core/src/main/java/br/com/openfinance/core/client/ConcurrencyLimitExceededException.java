@@ -0,0 +1,18 @@
+package br.com.openfinance.core.client;
+
+import lombok.Getter;
+
+@Getter
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final String institutionId;
+    private final int limit;
+    private final String errorCode;
+
+    public ConcurrencyLimitExceededException(String institutionId, int limit) {
+        super(String.format("Concurrency limit %d exceeded for institution %s", limit, institutionId));
+        this.institutionId = institutionId;
+        this.limit = limit;
+        this.errorCode = "CONCURRENCY_LIMIT_EXCEEDED";
+    }
+}
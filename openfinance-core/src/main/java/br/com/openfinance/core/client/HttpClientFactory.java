@@ -0,0 +1,50 @@
+package br.com.openfinance.core.client;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class HttpClientFactory {
+
+    @Value("${openfinance.client.timeout:30}")
+    private int timeoutSeconds;
+
+    @Value("${openfinance.client.max-pending-acquires:10000}")
+    private int maxPendingAcquires;
+
+    @Value("${openfinance.client.max-idle-time:60}")
+    private int maxIdleTime;
+
+    public ConnectionProvider connectionProvider(String name, int maxConnections) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .maxIdleTime(Duration.ofSeconds(maxIdleTime))
+                .maxLifeTime(Duration.ofMinutes(5))
+                .pendingAcquireTimeout(Duration.ofSeconds(60))
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .evictInBackground(Duration.ofSeconds(120))
+                .metrics(true)
+                .build();
+    }
+
+    public HttpClient httpClient(ConnectionProvider connectionProvider) {
+        return HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeoutSeconds * 1000)
+                .responseTimeout(Duration.ofSeconds(timeoutSeconds))
+                .doOnConnected(conn ->
+                        conn.addHandlerLast(new ReadTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS))
+                                .addHandlerLast(new WriteTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS))
+                )
+                .compress(true)
+                .protocol(HttpProtocol.H2);
+    }
+}
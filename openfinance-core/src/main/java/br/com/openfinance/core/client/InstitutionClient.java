@@ -0,0 +1,42 @@
+package br.com.openfinance.core.client;
+
+import br.com.openfinance.core.security.OAuth2TokenManager;
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+@Getter
+public class InstitutionClient {
+
+    private final String institutionId;
+    private final String registrationId;
+    private final int maxConcurrentCalls;
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final OAuth2TokenManager tokenManager;
+
+    InstitutionClient(
+            String institutionId,
+            String registrationId,
+            int maxConcurrentCalls,
+            WebClient webClient,
+            ConnectionProvider connectionProvider,
+            OAuth2TokenManager tokenManager) {
+
+        this.institutionId = institutionId;
+        this.registrationId = registrationId;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.webClient = webClient;
+        this.connectionProvider = connectionProvider;
+        this.tokenManager = tokenManager;
+    }
+
+    public Mono<String> getToken() {
+        return tokenManager.getToken(registrationId);
+    }
+
+    public void invalidateToken() {
+        tokenManager.invalidate(registrationId);
+    }
+}
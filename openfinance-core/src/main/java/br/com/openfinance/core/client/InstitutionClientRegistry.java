@@ -0,0 +1,108 @@
+package br.com.openfinance.core.client;
+
+import br.com.openfinance.core.config.InstitutionClientProperties;
+import br.com.openfinance.core.config.RequestLogPolicy;
+import br.com.openfinance.core.security.OAuth2TokenManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Slf4j
+@Component
+public class InstitutionClientRegistry implements DisposableBean {
+
+    private final WebClient.Builder webClientBuilder;
+    private final HttpClientFactory httpClientFactory;
+    private final OAuth2TokenManager tokenManager;
+    private final InstitutionClientProperties properties;
+    private final Cache<String, InstitutionClient> clients;
+
+    public InstitutionClientRegistry(
+            WebClient.Builder webClientBuilder,
+            HttpClientFactory httpClientFactory,
+            OAuth2TokenManager tokenManager,
+            InstitutionClientProperties properties) {
+
+        this.webClientBuilder = webClientBuilder;
+        this.httpClientFactory = httpClientFactory;
+        this.tokenManager = tokenManager;
+        this.properties = properties;
+        this.clients = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(properties.getIdleTimeout()))
+                // Sem scheduler a expiração só acontece em acessos ao cache e o pool ocioso ficaria aberto
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    public InstitutionClient get(String institutionId) {
+        return clients.get(institutionId, this::create);
+    }
+
+    public void evict(String institutionId) {
+        clients.invalidate(institutionId);
+    }
+
+    public long size() {
+        return clients.estimatedSize();
+    }
+
+    @Override
+    public void destroy() {
+        clients.invalidateAll();
+        clients.cleanUp();
+    }
+
+    private InstitutionClient create(String institutionId) {
+        InstitutionClientProperties.Institution override = properties.getOverrides().get(institutionId);
+
+        String baseUrl = override != null && override.getBaseUrl() != null
+                ? override.getBaseUrl()
+                : properties.getBaseUrlTemplate().replace("{institutionId}", institutionId);
+        String registrationId = override != null && override.getRegistrationId() != null
+                ? override.getRegistrationId()
+                : properties.getRegistrationId();
+        int maxConnections = override != null && override.getMaxConnections() != null
+                ? override.getMaxConnections()
+                : properties.getMaxConnections();
+        int maxConcurrentCalls = properties.maxConcurrentCallsFor(institutionId);
+
+        ConnectionProvider connectionProvider =
+                httpClientFactory.connectionProvider("openfinance-" + institutionId, maxConnections);
+        WebClient webClient = webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .defaultRequest(spec -> spec.attribute(RequestLogPolicy.INSTITUTION_ATTRIBUTE, institutionId))
+                .clientConnector(new ReactorClientHttpConnector(httpClientFactory.httpClient(connectionProvider)))
+                .build();
+
+        log.info("Created client for institution {} ({} connections, registration {})",
+                institutionId, maxConnections, registrationId);
+        return new InstitutionClient(
+                institutionId, registrationId, maxConcurrentCalls, webClient, connectionProvider, tokenManager);
+    }
+
+    private void onRemoval(String institutionId, InstitutionClient client, RemovalCause cause) {
+        if (client == null) {
+            return;
+        }
+        log.info("Releasing client for institution {} ({})", institutionId, cause);
+        client.getConnectionProvider().disposeLater()
+                .subscribe(null, error -> log.warn("Failed to dispose connection pool for {}", institutionId, error));
+
+        // Registrations compartilhadas continuam ativas enquanto outra instituição as usar
+        boolean registrationInUse = clients.asMap().values().stream()
+                .anyMatch(other -> other.getRegistrationId().equals(client.getRegistrationId()));
+        if (!registrationInUse) {
+            client.invalidateToken();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.openfinance.core.client;
+
+import br.com.openfinance.core.config.RateLimitProperties;
+import br.com.openfinance.core.processor.Lane;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class InstitutionRateLimiter {
+
+    private static final String KEY_PREFIX = "openfinance:rate-limit:";
+
+    // Mesmo algoritmo do TokenBucket, com o relógio do Redis para todos os pods enxergarem o mesmo tempo
+    private static final ByteBuffer TOKEN_BUCKET_SCRIPT = StandardCharsets.UTF_8.encode("""
+            local now = redis.call('TIME')
+            now = tonumber(now[1]) * 1000 + math.floor(tonumber(now[2]) / 1000)
+            local rate = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1]) or capacity
+            local ts = tonumber(state[2]) or now
+            tokens = math.min(capacity, tokens + (now - ts) * rate) - 1
+            local wait = 0
+            if tokens < 0 then
+                wait = math.ceil(-tokens / rate)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + wait + 1000)
+            return wait
+            """);
+
+    private final RateLimitProperties properties;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> localBuckets = new ConcurrentHashMap<>();
+
+    public InstitutionRateLimiter(
+            RateLimitProperties properties,
+            ReactiveRedisTemplate<String, Object> redisTemplate,
+            MeterRegistry meterRegistry) {
+
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Mono<Void> acquire(String institutionId, String endpoint) {
+        return acquire(institutionId, endpoint, Lane.BULK);
+    }
+
+    // PRIORITY não espera atrás das reservas do lote: o token é debitado do mesmo bucket, então as
+    // próximas reservas do lote absorvem o atraso e a cota média da instituição continua respeitada.
+    // O excesso momentâneo fica limitado ao que a faixa prioritária consegue ter em andamento
+    public Mono<Void> acquire(String institutionId, String endpoint, Lane lane) {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        RateLimitProperties.Limit limit = properties.resolve(institutionId, endpoint);
+        if (limit == null || limit.getTokensPerMinute() <= 0) {
+            return Mono.empty();
+        }
+
+        String key = institutionId + ":" + endpoint;
+        if (!properties.isShared()) {
+            long waitNanos = localReserve(key, limit);
+            return lane == Lane.PRIORITY ? Mono.empty() : delay(institutionId, endpoint, waitNanos);
+        }
+
+        return reserveShared(key, limit)
+                .onErrorResume(error -> {
+                    log.warn("Shared rate limit unavailable for {}, using local bucket: {}", key, error.getMessage());
+                    return Mono.just(localReserve(key, limit));
+                })
+                .flatMap(waitNanos -> lane == Lane.PRIORITY
+                        ? Mono.<Void>empty()
+                        : delay(institutionId, endpoint, waitNanos));
+    }
+
+    private long localReserve(String key, RateLimitProperties.Limit limit) {
+        TokenBucket bucket = localBuckets.get(key);
+        if (bucket == null) {
+            bucket = localBuckets.computeIfAbsent(key,
+                    k -> new TokenBucket(limit.getTokensPerMinute(), limit.getBurst()));
+        }
+        return bucket.reserve();
+    }
+
+    private Mono<Long> reserveShared(String key, RateLimitProperties.Limit limit) {
+        double tokensPerMilli = limit.getTokensPerMinute() / (double) TimeUnit.MINUTES.toMillis(1);
+
+        return redisTemplate.execute(connection -> connection.scriptingCommands().<Long>eval(
+                        TOKEN_BUCKET_SCRIPT.duplicate(), ReturnType.INTEGER, 1,
+                        StandardCharsets.UTF_8.encode(KEY_PREFIX + key),
+                        StandardCharsets.UTF_8.encode(String.valueOf(tokensPerMilli)),
+                        StandardCharsets.UTF_8.encode(String.valueOf(Math.max(limit.getBurst(), 1)))))
+                .next()
+                .map(TimeUnit.MILLISECONDS::toNanos);
+    }
+
+    private Mono<Void> delay(String institutionId, String endpoint, long waitNanos) {
+        if (waitNanos <= 0) {
+            return Mono.empty();
+        }
+        meterRegistry.counter("openfinance.client.rate-limited",
+                        "institution", institutionId,
+                        "endpoint", endpoint)
+                .increment();
+        // Espera com timer do Reactor: nenhuma thread fica parada aguardando o token
+        return Mono.delay(Duration.ofNanos(waitNanos)).then();
+    }
+}
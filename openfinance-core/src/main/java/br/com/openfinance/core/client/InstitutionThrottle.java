@@ -0,0 +1,99 @@
+package br.com.openfinance.core.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class InstitutionThrottle {
+
+    public static final int TOO_MANY_REQUESTS = 429;
+    public static final int SITE_IS_OVERLOADED = 529;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Map<String, ThrottleGate> gates = new ConcurrentHashMap<>();
+
+    public InstitutionThrottle(
+            MeterRegistry meterRegistry,
+            @Value("${openfinance.client.throttle.base-backoff-ms:1000}") long baseBackoffMillis,
+            @Value("${openfinance.client.throttle.max-backoff:60}") long maxBackoffSeconds) {
+
+        this.meterRegistry = meterRegistry;
+        this.baseBackoff = Duration.ofMillis(baseBackoffMillis);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+    }
+
+    public static boolean isThrottled(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == TOO_MANY_REQUESTS || status == SITE_IS_OVERLOADED;
+        }
+        return false;
+    }
+
+    public ThrottleGate gateFor(String institutionId) {
+        ThrottleGate existing = gates.get(institutionId);
+        if (existing != null) {
+            return existing;
+        }
+        return gates.computeIfAbsent(institutionId, this::register);
+    }
+
+    public void onThrottled(String institutionId, WebClientResponseException response) {
+        Duration retryAfter = parseRetryAfter(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Duration hold = gateFor(institutionId).onThrottled(retryAfter);
+
+        meterRegistry.counter("openfinance.client.throttled",
+                        "institution", institutionId,
+                        "status", String.valueOf(response.getStatusCode().value()))
+                .increment();
+        log.warn("Institution {} throttled with {} (Retry-After: {}), holding requests for {} ms",
+                institutionId, response.getStatusCode().value(),
+                retryAfter != null ? retryAfter.toMillis() + " ms" : "absent", hold.toMillis());
+    }
+
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            // delta-seconds
+            return Duration.ofSeconds(Math.max(Long.parseLong(trimmed), 0));
+        } catch (NumberFormatException ignored) {
+            // HTTP-date
+        }
+        try {
+            Instant until = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Duration delay = Duration.between(Instant.now(), until);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            log.debug("Ignoring invalid Retry-After header: {}", value);
+            return null;
+        }
+    }
+
+    private ThrottleGate register(String institutionId) {
+        ThrottleGate gate = new ThrottleGate(institutionId, baseBackoff, maxBackoff);
+        Gauge.builder("openfinance.client.throttle.hold", gate, ThrottleGate::remainingHoldMillis)
+                .description("Remaining backoff window per institution in milliseconds")
+                .tag("institution", institutionId)
+                .register(meterRegistry);
+        return gate;
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.openfinance.core.client;
+
+import lombok.Getter;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ThrottleGate {
+
+    @Getter
+    private final String institutionId;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private volatile long holdUntilNanos = System.nanoTime();
+    private volatile int consecutiveThrottles;
+
+    ThrottleGate(String institutionId, Duration baseBackoff, Duration maxBackoff) {
+        this.institutionId = institutionId;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public Mono<Void> awaitOpen() {
+        long remaining = holdUntilNanos - System.nanoTime();
+        if (remaining <= 0) {
+            return Mono.empty();
+        }
+        // Reavalia ao acordar: outro 429 pode ter estendido a janela enquanto aguardava
+        return Mono.delay(Duration.ofNanos(remaining)).then(Mono.defer(this::awaitOpen));
+    }
+
+    public synchronized Duration onThrottled(Duration retryAfter) {
+        long now = System.nanoTime();
+        boolean holding = holdUntilNanos - now > 0;
+
+        long delay;
+        if (retryAfter != null) {
+            delay = Math.min(retryAfter.toNanos(), maxBackoffNanos);
+        } else {
+            // Respostas a requisições enviadas antes da janela atual não aumentam o expoente
+            if (!holding) {
+                consecutiveThrottles = Math.min(consecutiveThrottles + 1, 30);
+            }
+            int exponent = Math.min(Math.max(consecutiveThrottles, 1) - 1, 20);
+            long ceiling = Math.min(maxBackoffNanos, baseBackoffNanos << exponent);
+            delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        }
+
+        if (now + delay - holdUntilNanos > 0) {
+            holdUntilNanos = now + delay;
+        }
+        return Duration.ofNanos(Math.max(holdUntilNanos - now, 0));
+    }
+
+    public void onSuccess() {
+        if (consecutiveThrottles != 0) {
+            consecutiveThrottles = 0;
+        }
+    }
+
+    public long remainingHoldMillis() {
+        return Math.max(Duration.ofNanos(holdUntilNanos - System.nanoTime()).toMillis(), 0);
+    }
+}
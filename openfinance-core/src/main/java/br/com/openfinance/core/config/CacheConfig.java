@@ -1,5 +1,9 @@
 package br.com.openfinance.core.config;
 
+import br.com.openfinance.core.cache.CacheTypeRegistrar;
+import br.com.openfinance.core.cache.CacheTypeRegistry;
+import br.com.openfinance.core.cache.CompactRedisSerializer;
+import br.com.openfinance.core.cache.ReactiveCacheManager;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
@@ -13,11 +17,13 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
@@ -35,6 +41,21 @@ public class CacheConfig {
     @Value("${openfinance.cache.ttl:13}")
     private int cacheTtlHours;
 
+    @Value("${openfinance.cache.codec.type:compact}")
+    private String codecType;
+
+    @Value("${openfinance.cache.codec.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${openfinance.cache.local.caches:}")
+    private Set<String> localCacheNames;
+
+    @Value("${openfinance.cache.local.max-size:100000}")
+    private long localMaxSize;
+
+    @Value("${openfinance.cache.local.ttl:60}")
+    private int localTtlSeconds;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
@@ -59,33 +80,56 @@ public class CacheConfig {
         return new LettuceConnectionFactory(redisConfig, poolConfig);
     }
 
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(List<CacheTypeRegistrar> registrars) {
+        if ("json".equalsIgnoreCase(codecType)) {
+            return CompactRedisSerializer.jsonSerializer();
+        }
+
+        CacheTypeRegistry registry = new CacheTypeRegistry();
+        registrars.forEach(registrar -> registrar.register(registry));
+        return new CompactRedisSerializer(registry, compressionThreshold);
+    }
+
     @Bean
     public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(
-            ReactiveRedisConnectionFactory connectionFactory) {
+            ReactiveRedisConnectionFactory connectionFactory,
+            RedisSerializer<Object> cacheValueSerializer) {
 
         StringRedisSerializer keySerializer = new StringRedisSerializer();
-        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
 
         RedisSerializationContext<String, Object> serializationContext =
                 RedisSerializationContext.<String, Object>newSerializationContext()
                         .key(keySerializer)
-                        .value(valueSerializer)
+                        .value(cacheValueSerializer)
                         .hashKey(keySerializer)
-                        .hashValue(valueSerializer)
+                        .hashValue(cacheValueSerializer)
                         .build();
 
         return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
     }
 
     @Bean
-    public CacheManager cacheManager(LettuceConnectionFactory connectionFactory) {
+    public ReactiveCacheManager reactiveCacheManager(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate) {
+        return new ReactiveCacheManager(
+                reactiveRedisTemplate,
+                Duration.ofHours(cacheTtlHours),
+                localCacheNames,
+                localMaxSize,
+                Duration.ofSeconds(localTtlSeconds));
+    }
+
+    @Bean
+    public CacheManager cacheManager(
+            LettuceConnectionFactory connectionFactory,
+            RedisSerializer<Object> cacheValueSerializer) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofHours(cacheTtlHours))
                 .disableCachingNullValues()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                        .fromSerializer(cacheValueSerializer));
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
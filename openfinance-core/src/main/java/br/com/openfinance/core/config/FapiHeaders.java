@@ -0,0 +1,44 @@
+package br.com.openfinance.core.config;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class FapiHeaders {
+
+    public static final String INTERACTION_ID = "x-fapi-interaction-id";
+    public static final String AUTH_DATE = "x-fapi-auth-date";
+
+    private static final DateTimeFormatter AUTH_DATE_FORMAT =
+            DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private static volatile CachedDate cachedDate = new CachedDate(Long.MIN_VALUE, null);
+
+    private FapiHeaders() {
+    }
+
+    // UUID v4 sem SecureRandom: o interaction-id só precisa ser único, não imprevisível
+    public static String newInteractionId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    // Format: Sun, 10 Sep 2017 19:43:31 GMT — a resolução é de segundos, então o texto é reaproveitado
+    public static String authDate() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        CachedDate cached = cachedDate;
+        if (cached.epochSecond() == epochSecond) {
+            return cached.value();
+        }
+        String value = AUTH_DATE_FORMAT.format(Instant.ofEpochSecond(epochSecond));
+        cachedDate = new CachedDate(epochSecond, value);
+        return value;
+    }
+
+    private record CachedDate(long epochSecond, String value) {
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.openfinance.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "openfinance.institutions")
+public class InstitutionClientProperties {
+
+    private String baseUrlTemplate = "https://api.{institutionId}.com.br/open-banking";
+
+    private String registrationId = "openfinance";
+
+    private int maxConnections = 200;
+
+    // Chamadas simultâneas por instituição; acima disso a chamada falha rápido em vez de esperar no pool
+    private int maxConcurrentCalls = 100;
+
+    // Minutos sem uso até o cliente da instituição (e seu pool) ser descartado
+    private int idleTimeout = 30;
+
+    private Map<String, Institution> overrides = new HashMap<>();
+
+    public int maxConcurrentCallsFor(String institutionId) {
+        Institution override = overrides.get(institutionId);
+        return override != null && override.getMaxConcurrentCalls() != null
+                ? override.getMaxConcurrentCalls()
+                : maxConcurrentCalls;
+    }
+
+    @Data
+    public static class Institution {
+        private String baseUrl;
+        private String registrationId;
+        private Integer maxConnections;
+        private Integer maxConcurrentCalls;
+    }
+}
@@ -3,22 +3,42 @@ package br.com.openfinance.core.config;
 import br.com.openfinance.core.metrics.OpenFinanceMetrics;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class MetricsConfig {
 
+    @Value("${openfinance.metrics.cardinality.max-institutions:200}")
+    private int maxInstitutions;
+
+    @Value("${openfinance.metrics.cardinality.max-endpoints:50}")
+    private int maxEndpoints;
+
+    @Value("${openfinance.metrics.cardinality.max-errors:50}")
+    private int maxErrors;
+
+    @Value("${openfinance.metrics.cardinality.max-error-types:20}")
+    private int maxErrorTypes;
+
+    @Value("${openfinance.metrics.cardinality.max-processed-types:10}")
+    private int maxProcessedTypes;
+
+    @Value("${openfinance.metrics.cardinality.max-operations:20}")
+    private int maxOperations;
+
     @Bean
     public Timer apiCallTimer(MeterRegistry registry) {
         return Timer.builder("openfinance.api.calls")
                 .description("API call duration")
-                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
                 .register(registry);
     }
 
     @Bean
     public OpenFinanceMetrics openFinanceMetrics(MeterRegistry registry) {
-        return new OpenFinanceMetrics(registry);
+        return new OpenFinanceMetrics(registry, maxInstitutions, maxEndpoints, maxErrors,
+                maxErrorTypes, maxProcessedTypes, maxOperations);
     }
 }
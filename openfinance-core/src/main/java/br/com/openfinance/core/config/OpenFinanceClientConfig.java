@@ -1,78 +1,58 @@
 package br.com.openfinance.core.config;
 
+import br.com.openfinance.core.client.ConcurrencyLimitExceededException;
+import br.com.openfinance.core.client.InstitutionThrottle;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
 import io.github.resilience4j.retry.RetryConfig;
 import io.github.resilience4j.retry.RetryRegistry;
-import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.handler.timeout.WriteTimeoutHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.netty.http.HttpProtocol;
-import reactor.netty.http.client.HttpClient;
-import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Configuration
 public class OpenFinanceClientConfig {
 
-    @Value("${openfinance.client.timeout:30}")
-    private int timeoutSeconds;
+    @Value("${openfinance.client.logging.mode:sampled}")
+    private RequestLogPolicy.Mode loggingMode;
 
-    @Value("${openfinance.client.max-connections:1000}")
-    private int maxConnections;
-
-    @Value("${openfinance.client.max-pending-acquires:10000}")
-    private int maxPendingAcquires;
-
-    @Value("${openfinance.client.max-idle-time:60}")
-    private int maxIdleTime;
+    @Value("${openfinance.client.logging.sample-every:100}")
+    private long loggingSampleEvery;
 
+    // Sem conector: cada instituição recebe o seu, com pool próprio, no InstitutionClientRegistry
     @Bean
     public WebClient.Builder webClientBuilder() {
-        ConnectionProvider connectionProvider = ConnectionProvider.builder("openfinance")
-                .maxConnections(maxConnections)
-                .maxIdleTime(Duration.ofSeconds(maxIdleTime))
-                .maxLifeTime(Duration.ofMinutes(5))
-                .pendingAcquireTimeout(Duration.ofSeconds(60))
-                .pendingAcquireMaxCount(maxPendingAcquires)
-                .evictInBackground(Duration.ofSeconds(120))
-                .build();
-
-        HttpClient httpClient = HttpClient.create(connectionProvider)
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeoutSeconds * 1000)
-                .responseTimeout(Duration.ofSeconds(timeoutSeconds))
-                .doOnConnected(conn ->
-                        conn.addHandlerLast(new ReadTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS))
-                                .addHandlerLast(new WriteTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS))
-                )
-                .compress(true)
-                .protocol(HttpProtocol.H2);
-
         ExchangeStrategies strategies = ExchangeStrategies.builder()
                 .codecs(configurer -> {
                     configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024); // 10MB
-                    configurer.defaultCodecs().enableLoggingRequestDetails(true);
+                    // Com true o DEBUG do WebClient expõe headers como Authorization
+                    configurer.defaultCodecs().enableLoggingRequestDetails(false);
                 })
                 .build();
 
         return WebClient.builder()
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .exchangeStrategies(strategies)
-                .filter(new OpenFinanceClientFilter());
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .filter(new OpenFinanceClientFilter(new RequestLogPolicy(loggingMode, loggingSampleEvery)));
     }
 
     @Bean
-    public CircuitBreakerRegistry circuitBreakerRegistry() {
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
         CircuitBreakerConfig config = CircuitBreakerConfig.custom()
                 .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
                 .slidingWindowSize(60) // 60 seconds
@@ -82,22 +62,47 @@ public class OpenFinanceClientConfig {
                 .permittedNumberOfCallsInHalfOpenState(5)
                 .slowCallDurationThreshold(Duration.ofSeconds(10))
                 .slowCallRateThreshold(80)
+                // Bulkhead ou fila do limiter cheios são sobrecarga local, não falha da instituição
+                .ignoreExceptions(BulkheadFullException.class, ConcurrencyLimitExceededException.class)
+                // 429/529 já seguram a instituição no ThrottleGate; abrir o circuito só prolongaria a espera
+                .ignoreException(InstitutionThrottle::isThrottled)
                 .build();
 
-        return CircuitBreakerRegistry.of(config);
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(MeterRegistry meterRegistry) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                // Zero: o semáforo nunca bloqueia a thread do event loop
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
     }
 
     @Bean
     public RetryRegistry retryRegistry() {
         RetryConfig config = RetryConfig.custom()
                 .maxAttempts(3)
-                .waitDuration(Duration.ofMillis(500))
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(Duration.ofMillis(500), 2.0, 0.5))
                 .retryOnException(throwable -> {
-                    if (throwable instanceof java.net.SocketTimeoutException ||
-                            throwable instanceof java.net.ConnectException ||
-                            throwable instanceof io.netty.handler.timeout.ReadTimeoutException) {
+                    // Throttling é retentado atrás do ThrottleGate, respeitando o Retry-After da instituição
+                    if (InstitutionThrottle.isThrottled(throwable)) {
                         return true;
                     }
+                    // O WebClient embrulha falhas de conexão em WebClientRequestException
+                    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+                        if (cause instanceof java.net.SocketTimeoutException ||
+                                cause instanceof java.net.ConnectException ||
+                                cause instanceof io.netty.handler.timeout.ReadTimeoutException) {
+                            return true;
+                        }
+                    }
                     return false;
                 })
                 .build();
@@ -1,46 +1,90 @@
 package br.com.openfinance.core.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import reactor.core.publisher.Mono;
 
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class OpenFinanceClientFilter implements ExchangeFilterFunction {
 
+    private final RequestLogPolicy logPolicy;
+
+    public OpenFinanceClientFilter() {
+        this(RequestLogPolicy.full());
+    }
+
+    public OpenFinanceClientFilter(RequestLogPolicy logPolicy) {
+        this.logPolicy = logPolicy;
+    }
+
     @Override
     public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
-        String interactionId = UUID.randomUUID().toString();
-
-        ClientRequest newRequest = ClientRequest.from(request)
-                .header("x-fapi-interaction-id", interactionId)
-                .header("x-fapi-auth-date", generateAuthDate())
-                .header("Accept", "application/json")
-                .header("Content-Type", "application/json")
-                .build();
+        ClientRequest newRequest = decorate(request);
+        String institutionId = (String) request.attribute(RequestLogPolicy.INSTITUTION_ATTRIBUTE).orElse(null);
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         return next.exchange(newRequest)
                 .doOnSuccess(response -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    log.info("Request to {} completed in {}ms with status {}",
-                            request.url(), duration, response.statusCode());
+                    int status = response.statusCode().value();
+                    if (status >= 400) {
+                        log.atWarn()
+                                .addKeyValue("institution", institutionId)
+                                .addKeyValue("method", newRequest.method().name())
+                                .addKeyValue("path", newRequest.url().getPath())
+                                .addKeyValue("status", status)
+                                .addKeyValue("durationMs", elapsedMillis(startTime))
+                                .addKeyValue("interactionId", newRequest.headers().getFirst(FapiHeaders.INTERACTION_ID))
+                                .log("Outbound request returned error status");
+                    } else if (log.isInfoEnabled() && logPolicy.shouldLogSuccess(institutionId)) {
+                        log.atInfo()
+                                .addKeyValue("institution", institutionId)
+                                .addKeyValue("method", newRequest.method().name())
+                                .addKeyValue("path", newRequest.url().getPath())
+                                .addKeyValue("status", status)
+                                .addKeyValue("durationMs", elapsedMillis(startTime))
+                                .log("Outbound request completed");
+                    }
+                })
+                .doOnError(error -> log.atError()
+                        .addKeyValue("institution", institutionId)
+                        .addKeyValue("method", newRequest.method().name())
+                        .addKeyValue("path", newRequest.url().getPath())
+                        .addKeyValue("durationMs", elapsedMillis(startTime))
+                        .addKeyValue("interactionId", newRequest.headers().getFirst(FapiHeaders.INTERACTION_ID))
+                        .addKeyValue("error", error.getClass().getSimpleName())
+                        .log("Outbound request failed: {}", error.getMessage()));
+    }
+
+    // Headers fixos (Accept) vêm do WebClient.Builder; aqui só os que mudam por requisição,
+    // e apenas se o chamador ainda não os definiu
+    ClientRequest decorate(ClientRequest request) {
+        HttpHeaders headers = request.headers();
+        boolean hasInteractionId = headers.containsKey(FapiHeaders.INTERACTION_ID);
+        boolean hasAuthDate = headers.containsKey(FapiHeaders.AUTH_DATE);
+        if (hasInteractionId && hasAuthDate) {
+            return request;
+        }
+
+        return ClientRequest.from(request)
+                .headers(target -> {
+                    if (!hasInteractionId) {
+                        target.set(FapiHeaders.INTERACTION_ID, FapiHeaders.newInteractionId());
+                    }
+                    if (!hasAuthDate) {
+                        target.set(FapiHeaders.AUTH_DATE, FapiHeaders.authDate());
+                    }
                 })
-                .doOnError(error -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    log.error("Request to {} failed after {}ms: {}",
-                            request.url(), duration, error.getMessage());
-                });
+                .build();
     }
 
-    private String generateAuthDate() {
-        // Format: Sun, 10 Sep 2017 19:43:31 UTC
-        return java.time.ZonedDateTime.now(java.time.ZoneOffset.UTC)
-                .format(java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME);
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 }
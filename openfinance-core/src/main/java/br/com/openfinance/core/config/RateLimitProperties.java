@@ -0,0 +1,45 @@
+package br.com.openfinance.core.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "openfinance.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Compartilha o bucket entre pods via Redis; sem isso cada pod aplica a cota inteira sozinho
+    private boolean shared = false;
+
+    private Limit defaultLimit = new Limit(600, 50);
+
+    // Limite por endpoint (accounts, balances, overdraft-limits) valendo para todas as instituições
+    private Map<String, Limit> endpoints = new HashMap<>();
+
+    // Cotas publicadas por instituição: institutions.<institutionId>.<endpoint>
+    private Map<String, Map<String, Limit>> institutions = new HashMap<>();
+
+    public Limit resolve(String institutionId, String endpoint) {
+        Map<String, Limit> institution = institutions.get(institutionId);
+        if (institution != null && institution.containsKey(endpoint)) {
+            return institution.get(endpoint);
+        }
+        return endpoints.getOrDefault(endpoint, defaultLimit);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int tokensPerMinute;
+        private int burst;
+    }
+}
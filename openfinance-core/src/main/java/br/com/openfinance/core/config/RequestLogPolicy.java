@@ -0,0 +1,59 @@
+package br.com.openfinance.core.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RequestLogPolicy {
+
+    public static final String INSTITUTION_ATTRIBUTE = "openfinance.institution";
+
+    public enum Mode {
+        // Toda requisição com sucesso é logada
+        FULL,
+        // Uma a cada sampleEvery por instituição
+        SAMPLED,
+        // Apenas erros e respostas 4xx/5xx
+        ERRORS
+    }
+
+    private static final String UNKNOWN_INSTITUTION = "unknown";
+
+    private final Mode mode;
+    private final long sampleEvery;
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public RequestLogPolicy(Mode mode, long sampleEvery) {
+        this.mode = mode;
+        this.sampleEvery = Math.max(sampleEvery, 1);
+    }
+
+    public static RequestLogPolicy full() {
+        return new RequestLogPolicy(Mode.FULL, 1);
+    }
+
+    // Erros nunca passam por aqui: são sempre logados pelo filtro
+    public boolean shouldLogSuccess(String institutionId) {
+        return switch (mode) {
+            case FULL -> true;
+            case ERRORS -> false;
+            case SAMPLED -> {
+                String key = institutionId != null ? institutionId : UNKNOWN_INSTITUTION;
+                AtomicLong counter = counters.get(key);
+                if (counter == null) {
+                    counter = counters.computeIfAbsent(key, k -> new AtomicLong());
+                }
+                // A primeira de cada instituição sempre aparece
+                yield counter.getAndIncrement() % sampleEvery == 0;
+            }
+        };
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getSampleEvery() {
+        return sampleEvery;
+    }
+}
@@ -1,50 +1,144 @@
 package br.com.openfinance.core.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import lombok.RequiredArgsConstructor;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-@RequiredArgsConstructor
+// Builder + register a cada chamada ordena tags e aloca um Meter.Id só para achar o meter que já existe;
+// aqui os meters ficam em cache pela tupla de tags e o caminho quente é só lookup.
+// Tags abertas (instituição, endpoint, erro) passam por um TagValueLimiter e o status vira classe,
+// então o número de séries tem teto conhecido
 public class OpenFinanceMetrics {
 
+    private static final String API_CALL = "openfinance.api.call";
+    private static final String PROCESSED = "openfinance.accounts.processed";
+    private static final String BATCH_PROCESSING = "openfinance.batch.processing";
+    private static final String ERRORS = "openfinance.errors";
+
+    private static final StatusClass[] STATUS_CLASSES = StatusClass.values();
+
+    // Percentis calculados no servidor (histogram_quantile), agregáveis entre pods e instituições
+    private static final Duration MIN_EXPECTED_DURATION = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED_DURATION = Duration.ofSeconds(60);
+
     private final MeterRegistry registry;
+    private final TagValueLimiter institutions;
+    private final TagValueLimiter endpoints;
+    private final TagValueLimiter errorTypes;
+    private final TagValueLimiter errors;
+    private final TagValueLimiter processedTypes;
+    private final TagValueLimiter operations;
+
+    // institution -> endpoint -> status class -> timer
+    private final Map<String, Map<String, AtomicReferenceArray<Timer>>> apiCallTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> processedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> batchTimers = new ConcurrentHashMap<>();
+    // type -> error -> counter
+    private final Map<String, Map<String, Counter>> errorCounters = new ConcurrentHashMap<>();
+
+    public OpenFinanceMetrics(MeterRegistry registry) {
+        this(registry, 200, 50, 50, 20, 10, 20);
+    }
+
+    // Um teto por tag: tipos de erro, tipos de processamento e operações são vocabulários do código,
+    // bem menores que o de endpoints, e não devem crescer junto quando o teto de endpoints sobe
+    public OpenFinanceMetrics(MeterRegistry registry, int maxInstitutions, int maxEndpoints, int maxErrors,
+                              int maxErrorTypes, int maxProcessedTypes, int maxOperations) {
+        this.registry = registry;
+        this.institutions = new TagValueLimiter(registry, API_CALL, "institution", maxInstitutions);
+        this.endpoints = new TagValueLimiter(registry, API_CALL, "endpoint", maxEndpoints);
+        this.errorTypes = new TagValueLimiter(registry, ERRORS, "type", maxErrorTypes);
+        this.errors = new TagValueLimiter(registry, ERRORS, "error", maxErrors);
+        this.processedTypes = new TagValueLimiter(registry, PROCESSED, "type", maxProcessedTypes);
+        this.operations = new TagValueLimiter(registry, BATCH_PROCESSING, "operation", maxOperations);
+
+        for (String name : new String[]{API_CALL, PROCESSED, BATCH_PROCESSING, ERRORS}) {
+            Gauge.builder("openfinance.metrics.series", registry, r -> r.find(name).meters().size())
+                    .tag("meter", name)
+                    .description("Series currently registered for the meter")
+                    .register(registry);
+        }
+        Gauge.builder("openfinance.metrics.series.total", registry, r -> r.getMeters().size())
+                .description("Series currently registered in the meter registry")
+                .register(registry);
+    }
 
     public void recordApiCall(String institution, String endpoint, int status, long duration) {
-        Timer.builder("openfinance.api.call")
-                .tag("institution", institution)
-                .tag("endpoint", endpoint)
-                .tag("status", String.valueOf(status))
-                .publishPercentiles(0.5, 0.95, 0.99)
-                .register(registry)
+        apiCallTimer(institutions.limit(institution), endpoints.limit(endpoint), StatusClass.of(status))
                 .record(duration, TimeUnit.MILLISECONDS);
     }
 
     public void incrementProcessedAccounts(String type) {
-        Counter.builder("openfinance.accounts.processed")
-                .tag("type", type)
-                .description("Number of accounts processed")
-                .register(registry)
-                .increment();
+        type = processedTypes.limit(type);
+        Counter counter = processedCounters.get(type);
+        if (counter == null) {
+            counter = processedCounters.computeIfAbsent(type, t -> Counter.builder(PROCESSED)
+                    .tag("type", t)
+                    .description("Number of accounts processed")
+                    .register(registry));
+        }
+        counter.increment();
     }
 
     public void recordBatchProcessingTime(String operation, Duration duration) {
-        Timer.builder("openfinance.batch.processing")
-                .tag("operation", operation)
-                .description("Batch processing time")
-                .register(registry)
-                .record(duration);
+        operation = operations.limit(operation);
+        Timer timer = batchTimers.get(operation);
+        if (timer == null) {
+            timer = batchTimers.computeIfAbsent(operation, o -> Timer.builder(BATCH_PROCESSING)
+                    .tag("operation", o)
+                    .description("Batch processing time")
+                    .register(registry));
+        }
+        timer.record(duration);
     }
 
     public void incrementErrors(String type, String error) {
-        Counter.builder("openfinance.errors")
-                .tag("type", type)
-                .tag("error", error)
-                .description("Number of errors")
-                .register(registry)
-                .increment();
+        String limitedType = errorTypes.limit(type);
+        String limitedError = errors.limit(error);
+        Map<String, Counter> byError = errorCounters.get(limitedType);
+        if (byError == null) {
+            byError = errorCounters.computeIfAbsent(limitedType, t -> new ConcurrentHashMap<>());
+        }
+        Counter counter = byError.get(limitedError);
+        if (counter == null) {
+            counter = byError.computeIfAbsent(limitedError, e -> Counter.builder(ERRORS)
+                    .tag("type", limitedType)
+                    .tag("error", e)
+                    .description("Number of errors")
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    private Timer apiCallTimer(String institution, String endpoint, StatusClass status) {
+        Map<String, AtomicReferenceArray<Timer>> byEndpoint = apiCallTimers.get(institution);
+        if (byEndpoint == null) {
+            byEndpoint = apiCallTimers.computeIfAbsent(institution, i -> new ConcurrentHashMap<>());
+        }
+        AtomicReferenceArray<Timer> byStatus = byEndpoint.get(endpoint);
+        if (byStatus == null) {
+            byStatus = byEndpoint.computeIfAbsent(endpoint, e -> new AtomicReferenceArray<>(STATUS_CLASSES.length));
+        }
+        Timer timer = byStatus.get(status.ordinal());
+        if (timer == null) {
+            // O registry devolve o mesmo meter para o mesmo id, então uma corrida aqui não duplica séries
+            timer = Timer.builder(API_CALL)
+                    .tag("institution", institution)
+                    .tag("endpoint", endpoint)
+                    .tag("status", status.tagValue())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED_DURATION)
+                    .maximumExpectedValue(MAX_EXPECTED_DURATION)
+                    .register(registry);
+            byStatus.set(status.ordinal(), timer);
+        }
+        return timer;
     }
 }
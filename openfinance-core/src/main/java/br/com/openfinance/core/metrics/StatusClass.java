@@ -0,0 +1,38 @@
+package br.com.openfinance.core.metrics;
+
+// Status HTTP agrupado para tag: o código exato não cabe em série por instituição
+public enum StatusClass {
+
+    INFORMATIONAL("1xx"),
+    SUCCESS("2xx"),
+    REDIRECTION("3xx"),
+    CLIENT_ERROR("4xx"),
+    // 429 fica separado: é o sinal de throttling da instituição, não erro do cliente
+    TOO_MANY_REQUESTS("429"),
+    SERVER_ERROR("5xx"),
+    UNKNOWN("unknown");
+
+    private final String tagValue;
+
+    StatusClass(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String tagValue() {
+        return tagValue;
+    }
+
+    public static StatusClass of(int status) {
+        if (status == 429) {
+            return TOO_MANY_REQUESTS;
+        }
+        return switch (status / 100) {
+            case 1 -> INFORMATIONAL;
+            case 2 -> SUCCESS;
+            case 3 -> REDIRECTION;
+            case 4 -> CLIENT_ERROR;
+            case 5 -> SERVER_ERROR;
+            default -> UNKNOWN;
+        };
+    }
+}
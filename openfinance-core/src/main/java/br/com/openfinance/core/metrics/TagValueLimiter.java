@@ -0,0 +1,50 @@
+package br.com.openfinance.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Limita quantos valores distintos uma tag pode ter; o excedente vira "other" em vez de abrir série nova
+public class TagValueLimiter {
+
+    public static final String OTHER = "other";
+    public static final String NONE = "none";
+
+    private final int maxValues;
+    private final Set<String> accepted = ConcurrentHashMap.newKeySet();
+    private final Counter overflow;
+
+    public TagValueLimiter(MeterRegistry registry, String meterName, String tagKey, int maxValues) {
+        this.maxValues = Math.max(maxValues, 1);
+        this.overflow = Counter.builder("openfinance.metrics.tag.overflow")
+                .tag("meter", meterName)
+                .tag("tag", tagKey)
+                .description("Tag values folded into 'other' after the cardinality cap")
+                .register(registry);
+    }
+
+    // Devolve o próprio valor (mesma instância) quando aceito, sem alocar no caminho quente
+    public String limit(String value) {
+        if (value == null || value.isEmpty()) {
+            return NONE;
+        }
+        if (accepted.contains(value)) {
+            return value;
+        }
+        return admit(value);
+    }
+
+    public int size() {
+        return accepted.size();
+    }
+
+    private synchronized String admit(String value) {
+        if (accepted.contains(value) || (accepted.size() < maxValues && accepted.add(value))) {
+            return value;
+        }
+        overflow.increment();
+        return OTHER;
+    }
+}
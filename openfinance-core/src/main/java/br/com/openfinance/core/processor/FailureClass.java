@@ -0,0 +1,64 @@
+package br.com.openfinance.core.processor;
+
+import br.com.openfinance.core.client.ConcurrencyLimitExceededException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+// Causa de falha de um item, no nível que importa para decidir entre retry e dead-letter
+public enum FailureClass {
+
+    // 429/529: a instituição pediu para segurar
+    THROTTLED(true),
+    // 5xx, erro de rede, circuito aberto
+    TRANSIENT(true),
+    // Fila do limiter ou bulkhead cheios deste pod
+    OVERLOAD(true),
+    TIMEOUT(true),
+    // 401/403: token ou consentimento
+    AUTH(false),
+    // Demais 4xx: repetir não muda a resposta
+    CLIENT(false),
+    UNKNOWN(false);
+
+    private final boolean retryable;
+
+    FailureClass(boolean retryable) {
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public static FailureClass of(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof WebClientResponseException response) {
+                int status = response.getStatusCode().value();
+                if (status == 429 || status == 529) {
+                    return THROTTLED;
+                }
+                if (status == 401 || status == 403) {
+                    return AUTH;
+                }
+                return status >= 500 ? TRANSIENT : CLIENT;
+            }
+            if (current instanceof TimeoutException) {
+                return TIMEOUT;
+            }
+            if (current instanceof BulkheadFullException || current instanceof ConcurrencyLimitExceededException) {
+                return OVERLOAD;
+            }
+            if (current instanceof CallNotPermittedException
+                    || current instanceof WebClientRequestException
+                    || current instanceof IOException) {
+                return TRANSIENT;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,266 @@
+package br.com.openfinance.core.processor;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+// Fila por chave (instituição) com sorteio round-robin entre as chaves que têm folga.
+// Duas travas: o total em andamento (maxInFlight) e o máximo por chave (keyCapacity);
+// chave sem folga é pulada, e a vaga vai para a próxima que tenha trabalho.
+// A faixa PRIORITY é sempre atendida primeiro e pode usar todo o limite; a BULK não passa de
+// (1 - priorityShare) do total nem do limite de cada chave, e o resto fica livre para a PRIORITY
+public class FairScheduler<K> {
+
+    private final int maxInFlight;
+    private final double priorityShare;
+    private final ToIntFunction<K> keyCapacity;
+
+    // Todo o estado abaixo é protegido pelo monitor da instância
+    private final List<LaneQueues> lanes = List.of(new LaneQueues(Lane.PRIORITY), new LaneQueues(Lane.BULK));
+    private final Map<K, KeySlots> slots = new HashMap<>();
+    private int inFlight;
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    public FairScheduler(int maxInFlight, ToIntFunction<K> keyCapacity) {
+        this(maxInFlight, 0, keyCapacity);
+    }
+
+    public FairScheduler(int maxInFlight, double priorityShare, ToIntFunction<K> keyCapacity) {
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.priorityShare = Math.min(Math.max(priorityShare, 0), 1);
+        this.keyCapacity = keyCapacity;
+    }
+
+    public <R> Mono<R> schedule(K key, Supplier<Mono<R>> task) {
+        return schedule(key, Lane.BULK, task);
+    }
+
+    // A tarefa só é assinada quando ganha vaga; o tempo na fila não conta para ela
+    public <R> Mono<R> schedule(K key, Lane lane, Supplier<Mono<R>> task) {
+        return Mono.create(sink -> {
+            Task<R> scheduled = new Task<>(key, lanes.get(lane.ordinal()), task, sink);
+            sink.onCancel(scheduled::cancel);
+            enqueue(scheduled);
+            drain();
+        });
+    }
+
+    public int getLimit() {
+        return maxInFlight;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getInFlight(K key) {
+        KeySlots keySlots = slots.get(key);
+        return keySlots == null ? 0 : keySlots.inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return lanes.get(0).queued + lanes.get(1).queued;
+    }
+
+    public synchronized int getQueued(Lane lane) {
+        return lanes.get(lane.ordinal()).queued;
+    }
+
+    private synchronized void enqueue(Task<?> task) {
+        LaneQueues lane = task.lane;
+        KeyQueue queue = lane.queues.computeIfAbsent(task.key, KeyQueue::new);
+        queue.tasks.addLast(task);
+        lane.queued++;
+        if (!queue.ready) {
+            queue.ready = true;
+            lane.ready.addLast(queue);
+        }
+    }
+
+    // Um único thread drena por vez; quem chega durante a drenagem só marca que há trabalho.
+    // Assim uma tarefa que completa na própria assinatura não empilha chamadas de drain
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            // Assinatura fora do monitor: a tarefa pode completar na hora e liberar a vaga
+            for (Task<?> task : select()) {
+                task.start();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private synchronized List<Task<?>> select() {
+        List<Task<?>> dispatched = new ArrayList<>();
+        for (LaneQueues lane : lanes) {
+            select(lane, dispatched);
+        }
+        return dispatched;
+    }
+
+    private void select(LaneQueues lane, List<Task<?>> dispatched) {
+        int laneLimit = lane.lane == Lane.PRIORITY ? maxInFlight : bulkLimit(maxInFlight);
+        int skipped = 0;
+        // Uma tarefa por chave a cada volta; para quando todas as chaves prontas foram
+        // visitadas em seguida sem nenhuma ter folga
+        while (inFlight < laneLimit && !lane.ready.isEmpty() && skipped < lane.ready.size()) {
+            KeyQueue queue = lane.ready.pollFirst();
+            KeySlots keySlots = slots.get(queue.key);
+            int keyInFlight = keySlots == null ? 0 : keySlots.inFlight;
+            int capacity = keyCapacity.applyAsInt(queue.key);
+            int keyLimit = lane.lane == Lane.PRIORITY ? capacity : bulkLimit(capacity);
+
+            Task<?> task = keyInFlight < keyLimit ? queue.tasks.pollFirst() : null;
+            if (task != null) {
+                if (keySlots == null) {
+                    keySlots = new KeySlots();
+                    slots.put(queue.key, keySlots);
+                }
+                keySlots.inFlight++;
+                inFlight++;
+                lane.queued--;
+                dispatched.add(task);
+                skipped = 0;
+            } else {
+                skipped++;
+            }
+
+            if (queue.tasks.isEmpty()) {
+                queue.ready = false;
+                lane.queues.remove(queue.key);
+            } else {
+                lane.ready.addLast(queue);
+            }
+        }
+    }
+
+    // Parte do limite que a faixa BULK pode ocupar; sempre ao menos 1 para o lote não parar
+    private int bulkLimit(int limit) {
+        if (priorityShare == 0 || limit == Integer.MAX_VALUE) {
+            return limit;
+        }
+        return Math.max(limit - (int) Math.ceil(limit * priorityShare), 1);
+    }
+
+    private synchronized void dequeueCancelled(Task<?> task) {
+        LaneQueues lane = task.lane;
+        KeyQueue queue = lane.queues.get(task.key);
+        if (queue != null && queue.tasks.remove(task)) {
+            lane.queued--;
+            if (queue.tasks.isEmpty()) {
+                queue.ready = false;
+                lane.ready.remove(queue);
+                lane.queues.remove(queue.key);
+            }
+        }
+    }
+
+    private void release(K key) {
+        synchronized (this) {
+            inFlight--;
+            KeySlots keySlots = slots.get(key);
+            if (keySlots != null && --keySlots.inFlight == 0) {
+                slots.remove(key);
+            }
+        }
+        drain();
+    }
+
+    private final class LaneQueues {
+
+        private final Lane lane;
+        private final Map<K, KeyQueue> queues = new HashMap<>();
+        private final ArrayDeque<KeyQueue> ready = new ArrayDeque<>();
+        private int queued;
+
+        private LaneQueues(Lane lane) {
+            this.lane = lane;
+        }
+    }
+
+    private final class KeyQueue {
+
+        private final K key;
+        private final ArrayDeque<Task<?>> tasks = new ArrayDeque<>();
+        private boolean ready;
+
+        private KeyQueue(K key) {
+            this.key = key;
+        }
+    }
+
+    // Em andamento por chave, somando as duas faixas
+    private static final class KeySlots {
+
+        private int inFlight;
+    }
+
+    private final class Task<R> {
+
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+
+        private final K key;
+        private final LaneQueues lane;
+        private final Supplier<Mono<R>> work;
+        private final MonoSink<R> sink;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private volatile Disposable subscription;
+        private volatile boolean cancelled;
+
+        private Task(K key, LaneQueues lane, Supplier<Mono<R>> work, MonoSink<R> sink) {
+            this.key = key;
+            this.lane = lane;
+            this.work = work;
+            this.sink = sink;
+        }
+
+        void start() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                // Cancelado entre a seleção e o início: devolve a vaga
+                release(key);
+                return;
+            }
+            // A tarefa roda com o Context de quem agendou, não o de quem liberou a vaga
+            subscription = Mono.defer(work)
+                    .contextWrite(sink.contextView())
+                    .doFinally(signal -> finish())
+                    .subscribe(sink::success, sink::error, sink::success);
+            if (cancelled) {
+                subscription.dispose();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (state.compareAndSet(QUEUED, DONE)) {
+                dequeueCancelled(this);
+                return;
+            }
+            Disposable running = subscription;
+            if (running != null) {
+                running.dispose();
+            }
+        }
+
+        private void finish() {
+            if (state.getAndSet(DONE) == RUNNING) {
+                release(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.openfinance.core.processor;
+
+import java.util.concurrent.TimeUnit;
+
+// Resultado compacto de um item: o chamador decide retry, dead-letter ou contagem sem reprocessar a entrada
+public record ItemOutcome<T, R>(
+        T item,
+        Status status,
+        R result,
+        FailureClass failureClass,
+        String error,
+        long latencyNanos) {
+
+    public enum Status {
+        SUCCESS,
+        FAILED,
+        TIMED_OUT,
+        // O processamento terminou sem resultado (Mono vazio)
+        SKIPPED
+    }
+
+    public static <T, R> ItemOutcome<T, R> success(T item, R result, long latencyNanos) {
+        return new ItemOutcome<>(item, Status.SUCCESS, result, null, null, latencyNanos);
+    }
+
+    public static <T, R> ItemOutcome<T, R> skipped(T item, long latencyNanos) {
+        return new ItemOutcome<>(item, Status.SKIPPED, null, null, null, latencyNanos);
+    }
+
+    public static <T, R> ItemOutcome<T, R> failure(T item, Throwable error, long latencyNanos) {
+        FailureClass failureClass = FailureClass.of(error);
+        Status status = failureClass == FailureClass.TIMEOUT ? Status.TIMED_OUT : Status.FAILED;
+        return new ItemOutcome<>(item, status, null, failureClass, describe(error), latencyNanos);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public boolean isRetryable() {
+        return failureClass != null && failureClass.isRetryable();
+    }
+
+    public long latencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+    }
+
+    private static String describe(Throwable error) {
+        String message = error.getMessage();
+        return message == null
+                ? error.getClass().getSimpleName()
+                : error.getClass().getSimpleName() + ": " + message;
+    }
+}
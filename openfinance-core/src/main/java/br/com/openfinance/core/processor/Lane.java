@@ -0,0 +1,14 @@
+package br.com.openfinance.core.processor;
+
+import reactor.util.context.ContextView;
+
+// PRIORITY: poucos itens, sensíveis a latência (on-demand). BULK: varreduras em lote
+public enum Lane {
+    PRIORITY,
+    BULK;
+
+    // A faixa segue no Context do Reactor até o cliente HTTP, que também prioriza na cota e no limite
+    public static Lane current(ContextView context) {
+        return context.getOrDefault(Lane.class, BULK);
+    }
+}
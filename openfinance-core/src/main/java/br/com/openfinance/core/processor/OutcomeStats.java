@@ -0,0 +1,103 @@
+package br.com.openfinance.core.processor;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Agregados por chave (ex.: instituição) atualizados conforme os resultados passam pelo stream
+public class OutcomeStats<K> {
+
+    private static final long MAX_TRACKABLE_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Map<K, KeyStats> stats = new ConcurrentHashMap<>();
+
+    public record Snapshot(
+            long success,
+            long failed,
+            long timedOut,
+            long skipped,
+            Map<FailureClass, Long> failuresByClass,
+            double p50Ms,
+            double p95Ms,
+            double p99Ms) {
+    }
+
+    public void record(K key, ItemOutcome<?, ?> outcome) {
+        KeyStats keyStats = stats.get(key);
+        if (keyStats == null) {
+            keyStats = stats.computeIfAbsent(key, k -> new KeyStats());
+        }
+        keyStats.record(outcome);
+    }
+
+    public void merge(OutcomeStats<K> other) {
+        other.stats.forEach((key, otherStats) -> stats.computeIfAbsent(key, k -> new KeyStats()).add(otherStats));
+    }
+
+    public Map<K, Snapshot> snapshot() {
+        Map<K, Snapshot> snapshot = new HashMap<>();
+        stats.forEach((key, keyStats) -> snapshot.put(key, keyStats.snapshot()));
+        return snapshot;
+    }
+
+    private static final class KeyStats {
+
+        private final LongAdder[] byStatus = newAdders(ItemOutcome.Status.values().length);
+        private final LongAdder[] byClass = newAdders(FailureClass.values().length);
+        private final Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+
+        void record(ItemOutcome<?, ?> outcome) {
+            byStatus[outcome.status().ordinal()].increment();
+            if (outcome.failureClass() != null) {
+                byClass[outcome.failureClass().ordinal()].increment();
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(outcome.latencyNanos(), 0));
+            latencies.recordValue(Math.min(micros, MAX_TRACKABLE_LATENCY_MICROS));
+        }
+
+        void add(KeyStats other) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i].add(other.byStatus[i].sum());
+            }
+            for (int i = 0; i < byClass.length; i++) {
+                byClass[i].add(other.byClass[i].sum());
+            }
+            latencies.add(other.latencies);
+        }
+
+        Snapshot snapshot() {
+            Map<FailureClass, Long> failuresByClass = new EnumMap<>(FailureClass.class);
+            for (FailureClass failureClass : FailureClass.values()) {
+                long count = byClass[failureClass.ordinal()].sum();
+                if (count > 0) {
+                    failuresByClass.put(failureClass, count);
+                }
+            }
+            Histogram copy = latencies.copy();
+            return new Snapshot(
+                    byStatus[ItemOutcome.Status.SUCCESS.ordinal()].sum(),
+                    byStatus[ItemOutcome.Status.FAILED.ordinal()].sum(),
+                    byStatus[ItemOutcome.Status.TIMED_OUT.ordinal()].sum(),
+                    byStatus[ItemOutcome.Status.SKIPPED.ordinal()].sum(),
+                    failuresByClass,
+                    copy.getValueAtPercentile(50) / 1000.0,
+                    copy.getValueAtPercentile(95) / 1000.0,
+                    copy.getValueAtPercentile(99) / 1000.0);
+        }
+
+        private static LongAdder[] newAdders(int size) {
+            LongAdder[] adders = new LongAdder[size];
+            for (int i = 0; i < size; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+    }
+}
@@ -1,77 +1,147 @@
 package br.com.openfinance.core.processor;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
+// Motor reativo, para trabalho não bloqueante; trabalho bloqueante vai no StructuredProcessor.
+// Uma instância por tipo de carga, compartilhada entre execuções: o limite de itens em andamento
+// vale para todas as chamadas juntas, e cada chamada só puxa do upstream o que cabe nesse limite
 @Slf4j
-@RequiredArgsConstructor
-public class ParallelProcessor<T, R> {
+public class ParallelProcessor {
 
-    private final int parallelism;
-    private final int batchSize;
+    @Getter
+    private final String name;
+    private final int maxInFlight;
+    private final int lookahead;
     private final Duration timeout;
-    private final ExecutorService virtualThreadExecutor;
+    private final FairScheduler<String> scheduler;
 
-    public ParallelProcessor(int parallelism, int batchSize, Duration timeout) {
-        this.parallelism = parallelism;
-        this.batchSize = batchSize;
+    public ParallelProcessor(String name, int maxInFlight, Duration timeout, MeterRegistry meterRegistry) {
+        this(name, maxInFlight, maxInFlight, 0, timeout, key -> Integer.MAX_VALUE, meterRegistry);
+    }
+
+    // keyCapacity: quantos itens da mesma chave podem estar em andamento ao mesmo tempo.
+    // lookahead: quantos itens uma chamada justa puxa à frente, para achar chaves com folga.
+    // priorityShare: fração do limite (total e por chave) que o lote deixa livre para processPriority
+    public ParallelProcessor(
+            String name,
+            int maxInFlight,
+            int lookahead,
+            double priorityShare,
+            Duration timeout,
+            ToIntFunction<String> keyCapacity,
+            MeterRegistry meterRegistry) {
+
+        this.name = name;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.lookahead = Math.max(lookahead, this.maxInFlight);
         this.timeout = timeout;
-        this.virtualThreadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.scheduler = new FairScheduler<>(this.maxInFlight, priorityShare,
+                key -> key == null ? Integer.MAX_VALUE : keyCapacity.applyAsInt(key));
+
+        Gauge.builder("openfinance.processor.inflight", scheduler, FairScheduler::getInFlight)
+                .description("Items being processed")
+                .tag("processor", name)
+                .register(meterRegistry);
+        for (Lane lane : Lane.values()) {
+            Gauge.builder("openfinance.processor.queued", scheduler, fair -> fair.getQueued(lane))
+                    .description("Items waiting for an in-flight slot")
+                    .tag("processor", name)
+                    .tag("lane", lane.name().toLowerCase())
+                    .register(meterRegistry);
+        }
     }
 
-    public Flux<R> processInParallel(List<T> items, Function<T, Mono<R>> processor) {
-        return Flux.fromIterable(items)
-                .window(batchSize)
-                .parallel(parallelism)
-                .runOn(Schedulers.fromExecutor(virtualThreadExecutor))
-                .flatMap(batch ->
-                        batch.flatMap(item ->
-                                processor.apply(item)
-                                        .timeout(timeout)
-                                        .onErrorResume(error -> {
-                                            log.error("Error processing item: {}", error.getMessage());
-                                            return Mono.empty();
-                                        })
-                        )
-                )
-                .sequential();
+    // Um ItemOutcome por item de entrada, inclusive falhas, timeouts e vazios
+    public <T, R> Flux<ItemOutcome<T, R>> processWithOutcomes(Flux<T> items, Function<T, Mono<R>> processor) {
+        // A concorrência do flatMap limita o que fica retido por chamada; o scheduler, o total do processor
+        return items.flatMap(item -> execute(null, Lane.BULK, item, processor), maxInFlight);
     }
 
-    public CompletableFuture<List<R>> processAllAsync(
-            List<T> items,
-            Function<T, CompletableFuture<R>> processor) {
-
-        List<CompletableFuture<R>> futures = items.stream()
-                .map(item ->
-                        CompletableFuture.supplyAsync(() ->
-                                        processor.apply(item).join(), virtualThreadExecutor)
-                                .exceptionally(throwable -> {
-                                    log.error("Error processing item", throwable);
-                                    return null;
-                                })
-                )
-                .toList();
-
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> futures.stream()
-                        .map(CompletableFuture::join)
-                        .filter(result -> result != null)
-                        .toList()
-                );
+    // Cada item entra na fila da sua chave, e as vagas são distribuídas em round-robin entre as
+    // chaves com folga: uma sequência longa de uma só chave não segura as demais. A chamada puxa
+    // até lookahead itens à frente para ter de onde escolher
+    public <T, R> Flux<ItemOutcome<T, R>> processFairWithOutcomes(
+            Flux<T> items, Function<T, String> keyExtractor, Function<T, Mono<R>> processor) {
+        return items.flatMap(item -> execute(keyExtractor.apply(item), Lane.BULK, item, processor), lookahead);
     }
 
-    public void shutdown() {
-        virtualThreadExecutor.shutdown();
+    // Itens com a mesma chave são processados em sequência, na ordem de chegada; chaves diferentes
+    // vão em paralelo. As chaves são espalhadas em maxInFlight faixas para o groupBy ter grupos limitados
+    public <T, K, R> Flux<ItemOutcome<T, R>> processOrderedWithOutcomes(
+            Flux<T> items, Function<T, K> keyExtractor, Function<T, Mono<R>> processor) {
+        return items
+                .groupBy(item -> Math.floorMod(Objects.hashCode(keyExtractor.apply(item)), maxInFlight))
+                .flatMap(lane -> lane.concatMap(item -> execute(null, Lane.BULK, item, processor)), maxInFlight);
+    }
+
+    // Um item avulso na faixa prioritária: passa à frente do lote e usa a capacidade reservada
+    public <T, R> Mono<ItemOutcome<T, R>> processPriority(T item, String key, Function<T, Mono<R>> processor) {
+        return execute(key, Lane.PRIORITY, item, processor);
+    }
+
+    // Só os resultados; falhas são logadas e descartadas
+    public <T, R> Flux<R> process(Flux<T> items, Function<T, Mono<R>> processor) {
+        return successes(processWithOutcomes(items, processor));
+    }
+
+    public <T, K, R> Flux<R> processOrdered(Flux<T> items, Function<T, K> keyExtractor, Function<T, Mono<R>> processor) {
+        return successes(processOrderedWithOutcomes(items, keyExtractor, processor));
+    }
+
+    public <T, R> Flux<R> processInParallel(List<T> items, Function<T, Mono<R>> processor) {
+        return process(Flux.fromIterable(items), processor);
     }
-}
 
+    public int getInFlight() {
+        return scheduler.getInFlight();
+    }
+
+    public int getInFlight(String key) {
+        return scheduler.getInFlight(key);
+    }
+
+    public int getQueued() {
+        return scheduler.getQueued();
+    }
+
+    public int getQueued(Lane lane) {
+        return scheduler.getQueued(lane);
+    }
+
+    // O timeout e a latência contam a partir da vaga, não do tempo na fila
+    private <T, R> Mono<ItemOutcome<T, R>> execute(
+            String key, Lane lane, T item, Function<T, Mono<R>> processor) {
+        return scheduler.schedule(key, lane, () -> {
+            long startNanos = System.nanoTime();
+            return Mono.defer(() -> processor.apply(item))
+                    .contextWrite(context -> context.put(Lane.class, lane))
+                    .timeout(timeout)
+                    .map(result -> ItemOutcome.<T, R>success(item, result, System.nanoTime() - startNanos))
+                    .switchIfEmpty(Mono.fromSupplier(() ->
+                            ItemOutcome.skipped(item, System.nanoTime() - startNanos)))
+                    .onErrorResume(error -> Mono.just(
+                            ItemOutcome.failure(item, error, System.nanoTime() - startNanos)));
+        });
+    }
+
+    private <T, R> Flux<R> successes(Flux<ItemOutcome<T, R>> outcomes) {
+        return outcomes.handle((outcome, sink) -> {
+            if (outcome.isSuccess()) {
+                sink.next(outcome.result());
+            } else if (outcome.status() != ItemOutcome.Status.SKIPPED) {
+                log.error("Error processing item in {}: {}", name, outcome.error());
+            }
+        });
+    }
+}
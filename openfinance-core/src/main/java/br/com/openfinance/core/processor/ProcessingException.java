@@ -0,0 +1,31 @@
+package br.com.openfinance.core.processor;
+
+import lombok.Getter;
+
+@Getter
+public class ProcessingException extends RuntimeException {
+
+    private final String processor;
+    private final String errorCode;
+
+    private ProcessingException(String processor, String errorCode, String message, Throwable cause) {
+        super(message, cause);
+        this.processor = processor;
+        this.errorCode = errorCode;
+    }
+
+    public static ProcessingException failed(String processor, Throwable cause) {
+        return new ProcessingException(processor, "PROCESSING_FAILED",
+                String.format("Processing in %s failed: %s", processor, cause.getMessage()), cause);
+    }
+
+    public static ProcessingException deadlineExceeded(String processor) {
+        return new ProcessingException(processor, "PROCESSING_DEADLINE_EXCEEDED",
+                String.format("Processing in %s did not finish before the deadline", processor), null);
+    }
+
+    public static ProcessingException interrupted(String processor, InterruptedException cause) {
+        return new ProcessingException(processor, "PROCESSING_INTERRUPTED",
+                String.format("Processing in %s was interrupted", processor), cause);
+    }
+}
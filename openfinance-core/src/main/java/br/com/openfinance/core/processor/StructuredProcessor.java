@@ -0,0 +1,247 @@
+package br.com.openfinance.core.processor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// Motor para trabalho bloqueante em virtual threads, com o ciclo de vida preso a um StructuredTaskScope:
+// nenhuma subtarefa sobrevive à chamada, falha ou prazo cancelam as irmãs e o semáforo (compartilhado
+// entre chamadas) limita quantas rodam ao mesmo tempo. Só cria a subtarefa depois de ter o permit,
+// então N itens nunca viram N threads de uma vez.
+@Slf4j
+public class StructuredProcessor {
+
+    public enum FailurePolicy {
+        // Primeira falha cancela as demais e é relançada
+        FAIL_FAST,
+        // Todas rodam; falhas e itens não concluídos voltam no resultado
+        COLLECT_ALL
+    }
+
+    public record Failure<T>(T item, Throwable cause) {
+    }
+
+    public record Completion<T, R>(List<R> results, List<Failure<T>> failures, List<T> notCompleted) {
+
+        public boolean isComplete() {
+            return failures.isEmpty() && notCompleted.isEmpty();
+        }
+    }
+
+    // Prazo da chamada mais externa; chamadas aninhadas nunca passam dele
+    private static final ScopedValue<Instant> DEADLINE = ScopedValue.newInstance();
+
+    // Processor dono da subtarefa em execução, para reconhecer chamadas aninhadas no mesmo processor
+    private static final ScopedValue<StructuredProcessor> OWNER = ScopedValue.newInstance();
+
+    @Getter
+    private final String name;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final ExecutorService callerExecutor;
+    private final Scheduler callerScheduler;
+
+    public StructuredProcessor(String name, int maxConcurrency, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrency = Math.max(maxConcurrency, 1);
+        this.permits = new Semaphore(this.maxConcurrency);
+        this.threadFactory = Thread.ofVirtual().name(name + "-", 0).factory();
+        this.callerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.callerScheduler = Schedulers.fromExecutorService(callerExecutor, name);
+
+        Gauge.builder("openfinance.processor.inflight", this, StructuredProcessor::getInFlight)
+                .description("Items being processed")
+                .tag("processor", name)
+                .register(meterRegistry);
+        Gauge.builder("openfinance.processor.queued", permits, Semaphore::getQueueLength)
+                .description("Items waiting for an in-flight slot")
+                .tag("processor", name)
+                .register(meterRegistry);
+    }
+
+    public static Optional<Instant> currentDeadline() {
+        return DEADLINE.isBound() ? Optional.of(DEADLINE.get()) : Optional.empty();
+    }
+
+    public <T, R> Completion<T, R> invokeAll(
+            List<T> items,
+            Function<T, R> task,
+            FailurePolicy policy,
+            Duration timeout) throws InterruptedException {
+
+        Instant deadline = Instant.now().plus(timeout);
+        if (DEADLINE.isBound() && DEADLINE.get().isBefore(deadline)) {
+            deadline = DEADLINE.get();
+        }
+
+        // Chamada aninhada no mesmo processor: a subtarefa mãe já ocupa um permit do pool
+        // compartilhado, e se todas as mães esperassem por permits para as filhas ninguém andaria
+        // até o prazo. As filhas usam um pool próprio, do mesmo tamanho, que vive só nesta chamada
+        Semaphore pool = OWNER.isBound() && OWNER.get() == this
+                ? new Semaphore(maxConcurrency)
+                : permits;
+
+        Instant effectiveDeadline = deadline;
+        try {
+            return ScopedValue.where(DEADLINE, effectiveDeadline)
+                    .where(OWNER, this)
+                    .call(() -> run(items, task, policy, effectiveDeadline, pool));
+        } catch (InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw ProcessingException.failed(name, e);
+        }
+    }
+
+    // Cancelar o Mono interrompe a thread dona do escopo, que cancela as subtarefas ao fechar.
+    // Interrupção com o assinante ainda esperando (shutdown) termina com ProcessingException
+    public <T, R> Mono<Completion<T, R>> invokeAllAsync(
+            List<T> items,
+            Function<T, R> task,
+            FailurePolicy policy,
+            Duration timeout) {
+
+        return Mono.fromCallable(() -> {
+                    try {
+                        return invokeAll(items, task, policy, timeout);
+                    } catch (InterruptedException e) {
+                        // Cancelamento ou shutdown(): vira erro; se o assinante já cancelou,
+                        // o Reactor descarta o erro
+                        Thread.currentThread().interrupt();
+                        throw ProcessingException.interrupted(name, e);
+                    }
+                })
+                .subscribeOn(callerScheduler);
+    }
+
+    public int getInFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return permits.getQueueLength();
+    }
+
+    public void shutdown() {
+        callerScheduler.dispose();
+        callerExecutor.shutdownNow();
+    }
+
+    private <T, R> Completion<T, R> run(
+            List<T> items,
+            Function<T, R> task,
+            FailurePolicy policy,
+            Instant deadline,
+            Semaphore pool) throws InterruptedException {
+
+        List<Forked<T, R>> forked = new ArrayList<>(items.size());
+        boolean timedOut = false;
+
+        try (StructuredTaskScope<Object> scope = policy == FailurePolicy.FAIL_FAST
+                ? new StructuredTaskScope.ShutdownOnFailure(name, threadFactory)
+                : new StructuredTaskScope<>(name, threadFactory)) {
+
+            for (T item : items) {
+                if (scope.isShutdown()) {
+                    break;
+                }
+                long waitNanos = Duration.between(Instant.now(), deadline).toNanos();
+                if (waitNanos <= 0 || !pool.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+                    timedOut = true;
+                    break;
+                }
+                Forked<T, R> entry = new Forked<>(item);
+                forked.add(entry);
+                entry.subtask = scope.fork(() -> {
+                    try {
+                        return task.apply(item);
+                    } finally {
+                        entry.release(pool);
+                    }
+                });
+            }
+
+            try {
+                scope.joinUntil(deadline);
+            } catch (TimeoutException e) {
+                timedOut = true;
+                scope.shutdown();
+                // Após o shutdown o join retorna na hora; sem ele o escopo não libera o estado das subtarefas
+                scope.join();
+            }
+
+            if (scope instanceof StructuredTaskScope.ShutdownOnFailure failFast) {
+                failFast.throwIfFailed(cause -> ProcessingException.failed(name, cause));
+                if (timedOut) {
+                    throw ProcessingException.deadlineExceeded(name);
+                }
+            }
+            return collect(items, forked);
+        } finally {
+            // Subtarefas criadas com o escopo já encerrado nunca rodam; o permit delas volta aqui
+            for (Forked<T, R> entry : forked) {
+                entry.release(pool);
+            }
+        }
+    }
+
+    private <T, R> Completion<T, R> collect(List<T> items, List<Forked<T, R>> forked) {
+        List<R> results = new ArrayList<>(forked.size());
+        List<Failure<T>> failures = new ArrayList<>();
+        List<T> notCompleted = new ArrayList<>();
+
+        for (Forked<T, R> entry : forked) {
+            switch (entry.subtask.state()) {
+                case SUCCESS -> results.add(entry.subtask.get());
+                case FAILED -> failures.add(new Failure<>(entry.item, entry.subtask.exception()));
+                case UNAVAILABLE -> notCompleted.add(entry.item);
+            }
+        }
+        // Itens que nem chegaram a ser disparados (prazo ou escopo encerrado)
+        notCompleted.addAll(items.subList(forked.size(), items.size()));
+
+        if (!failures.isEmpty() || !notCompleted.isEmpty()) {
+            log.warn("{}: {} of {} items failed, {} not completed",
+                    name, failures.size(), items.size(), notCompleted.size());
+        }
+        return new Completion<>(results, failures, notCompleted);
+    }
+
+    private static final class Forked<T, R> {
+
+        private final T item;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile Subtask<R> subtask;
+
+        private Forked(T item) {
+            this.item = item;
+        }
+
+        void release(Semaphore permits) {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package br.com.openfinance.core.security;
+
+import br.com.openfinance.core.client.HttpClientFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.ReactiveOAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.WebClientReactiveClientCredentialsTokenResponseClient;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class OAuth2TokenManager implements DisposableBean {
+
+    // Margem para não entregar um token que expira durante a requisição
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_LIFETIME = Duration.ofMinutes(5);
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(5);
+
+    private final ReactiveClientRegistrationRepository clientRegistrations;
+    private final ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient;
+    private final ConnectionProvider connectionProvider;
+    private final Duration refreshAhead;
+    private final Duration requestTimeout;
+    private final Map<String, TokenHolder> holders = new ConcurrentHashMap<>();
+
+    public OAuth2TokenManager(
+            ReactiveClientRegistrationRepository clientRegistrations,
+            HttpClientFactory httpClientFactory,
+            @Value("${openfinance.oauth2.refresh-ahead:60}") int refreshAheadSeconds,
+            @Value("${openfinance.oauth2.timeout:10}") int timeoutSeconds,
+            @Value("${openfinance.oauth2.max-connections:50}") int maxConnections) {
+
+        this.clientRegistrations = clientRegistrations;
+        // Mesmos timeouts de conexão/leitura das APIs; o WebClient padrão do Spring Security não tem nenhum
+        this.connectionProvider = httpClientFactory.connectionProvider("openfinance-oauth2", maxConnections);
+        WebClientReactiveClientCredentialsTokenResponseClient client =
+                new WebClientReactiveClientCredentialsTokenResponseClient();
+        client.setWebClient(WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClientFactory.httpClient(connectionProvider)))
+                .build());
+        this.tokenResponseClient = client;
+        this.refreshAhead = Duration.ofSeconds(refreshAheadSeconds);
+        this.requestTimeout = Duration.ofSeconds(timeoutSeconds);
+    }
+
+    public Mono<String> getToken(String registrationId) {
+        TokenHolder holder = holders.get(registrationId);
+        if (holder == null) {
+            holder = holders.computeIfAbsent(registrationId, TokenHolder::new);
+        }
+        return holder.get();
+    }
+
+    public void invalidate(String registrationId) {
+        TokenHolder holder = holders.get(registrationId);
+        if (holder != null) {
+            holder.invalidate();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        holders.values().forEach(TokenHolder::invalidate);
+        holders.clear();
+        connectionProvider.dispose();
+    }
+
+    private Mono<OAuth2AccessToken> requestToken(String registrationId) {
+        return clientRegistrations.findByRegistrationId(registrationId)
+                .switchIfEmpty(Mono.error(() ->
+                        new IllegalArgumentException("Unknown OAuth2 client registration: " + registrationId)))
+                .flatMap(registration -> tokenResponseClient.getTokenResponse(
+                        new OAuth2ClientCredentialsGrantRequest(registration)))
+                // Teto para a chamada inteira: um token endpoint travado prenderia inFlight e todas as
+                // requisições da registration esperariam o mesmo Mono para sempre
+                .timeout(requestTimeout)
+                .map(response -> response.getAccessToken());
+    }
+
+    private record CurrentToken(String value, long refreshAtMillis, long usableUntilMillis) {
+    }
+
+    private final class TokenHolder {
+
+        private final String registrationId;
+        private final AtomicReference<Mono<CurrentToken>> inFlight = new AtomicReference<>();
+        private volatile CurrentToken current;
+        private volatile Disposable scheduledRefresh;
+        private volatile long nextBackgroundAttemptMillis;
+
+        private TokenHolder(String registrationId) {
+            this.registrationId = registrationId;
+        }
+
+        Mono<String> get() {
+            CurrentToken token = current;
+            long now = System.currentTimeMillis();
+            if (token != null && now < token.usableUntilMillis()) {
+                if (now >= token.refreshAtMillis()) {
+                    refreshInBackground();
+                }
+                return Mono.just(token.value());
+            }
+            return refresh().map(CurrentToken::value);
+        }
+
+        void invalidate() {
+            current = null;
+            Disposable scheduled = scheduledRefresh;
+            if (scheduled != null) {
+                scheduled.dispose();
+            }
+        }
+
+        private Mono<CurrentToken> refresh() {
+            // Todas as requisições concorrentes compartilham a mesma chamada ao token endpoint
+            return inFlight.updateAndGet(existing -> existing != null ? existing : requestToken(registrationId)
+                    .map(this::install)
+                    .doOnError(error -> log.error("Failed to obtain OAuth2 token for {}", registrationId, error))
+                    .doFinally(signal -> inFlight.set(null))
+                    .cache());
+        }
+
+        private void refreshInBackground() {
+            long now = System.currentTimeMillis();
+            if (inFlight.get() != null || now < nextBackgroundAttemptMillis) {
+                return;
+            }
+            refresh().subscribe(
+                    token -> log.debug("OAuth2 token for {} refreshed ahead of expiry", registrationId),
+                    error -> nextBackgroundAttemptMillis = System.currentTimeMillis() + RETRY_BACKOFF.toMillis());
+        }
+
+        private CurrentToken install(OAuth2AccessToken accessToken) {
+            long now = System.currentTimeMillis();
+            Instant expiresAt = accessToken.getExpiresAt() != null
+                    ? accessToken.getExpiresAt()
+                    : Instant.ofEpochMilli(now).plus(DEFAULT_LIFETIME);
+            long lifetime = expiresAt.toEpochMilli() - now;
+            // Tokens de vida curta são renovados na metade da validade
+            long refreshAt = now + Math.max(lifetime - refreshAhead.toMillis(), lifetime / 2);
+
+            CurrentToken token = new CurrentToken(
+                    accessToken.getTokenValue(), refreshAt, expiresAt.toEpochMilli() - EXPIRY_SKEW.toMillis());
+            current = token;
+            schedule(refreshAt - now);
+            return token;
+        }
+
+        private void schedule(long delayMillis) {
+            Disposable previous = scheduledRefresh;
+            if (previous != null) {
+                previous.dispose();
+            }
+            scheduledRefresh = Schedulers.parallel()
+                    .schedule(this::refreshInBackground, Math.max(delayMillis, 0), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.openfinance.core.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=br.com.openfinance.core.cache.CacheSerializerBenchmark
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"json", "compact"})
+    private String codec;
+
+    @Param({"1", "50"})
+    private int entries;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        CacheTypeRegistry registry = new CacheTypeRegistry()
+                .register(1, SampleAccount.class)
+                .registerList(2, SampleAccount.class);
+        serializer = "json".equals(codec)
+                ? CompactRedisSerializer.jsonSerializer()
+                : new CompactRedisSerializer(registry, 1024);
+
+        List<SampleAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            accounts.add(sampleAccount(i));
+        }
+        value = entries == 1 ? accounts.get(0) : accounts;
+        bytes = serializer.serialize(value);
+
+        // O tamanho do payload é fixo por combinação de parâmetros; sai uma vez por trial, no log
+        log.info("[{} x{}] {} bytes total, {} bytes/entry", codec, entries, bytes.length, bytes.length / entries);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private static SampleAccount sampleAccount(int i) {
+        String clientId = "client-" + (i % 7);
+        return new SampleAccount(
+                UUID.randomUUID().toString(),
+                "ACC-" + i,
+                clientId,
+                UUID.randomUUID().toString(),
+                "institution-" + (i % 3),
+                "Banco Exemplo",
+                "12345678000199",
+                "CONTA_DEPOSITO_A_VISTA",
+                "001",
+                "6272",
+                String.valueOf(94088392 + i),
+                "4",
+                new SampleBalance(
+                        new BigDecimal("15320.47"),
+                        new BigDecimal("1200.00"),
+                        new BigDecimal("0.00"),
+                        "BRL",
+                        LocalDateTime.now()),
+                LocalDateTime.now(),
+                "ACTIVE",
+                clientId.substring(0, 3) + ":institution-" + (i % 3),
+                i % 256);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SampleAccount {
+        private String id;
+        private String accountId;
+        private String clientId;
+        private String consentId;
+        private String institutionId;
+        private String brandName;
+        private String companyCnpj;
+        private String type;
+        private String compeCode;
+        private String branchCode;
+        private String number;
+        private String checkDigit;
+        private SampleBalance balance;
+        private LocalDateTime lastUpdated;
+        private String status;
+        private String partitionKey;
+        private Integer shard;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SampleBalance {
+        private BigDecimal availableAmount;
+        private BigDecimal blockedAmount;
+        private BigDecimal automaticallyInvestedAmount;
+        private String currency;
+        private LocalDateTime updateDateTime;
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.openfinance.core.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=br.com.openfinance.core.config.ClientFilterHeadersBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ClientFilterHeadersBenchmark {
+
+    private final OpenFinanceClientFilter filter = new OpenFinanceClientFilter();
+    private ClientRequest request;
+
+    @Setup
+    public void setUp() {
+        URI uri = URI.create("https://api.bank.com.br/open-banking/accounts/v2/accounts/123/balances");
+        request = ClientRequest.create(HttpMethod.GET, uri)
+                .header("Authorization", "Bearer token")
+                .header("consent-id", "urn:bank:consent:123")
+                .build();
+    }
+
+    // Caminho antigo: o adapter gerava um interaction-id e o filtro outro, mais data e headers fixos
+    @Benchmark
+    public ClientRequest legacy() {
+        ClientRequest withAdapterId = ClientRequest.from(request)
+                .header("x-fapi-interaction-id", UUID.randomUUID().toString())
+                .build();
+        return ClientRequest.from(withAdapterId)
+                .header("x-fapi-interaction-id", UUID.randomUUID().toString())
+                .header("x-fapi-auth-date", ZonedDateTime.now(ZoneOffset.UTC)
+                        .format(DateTimeFormatter.RFC_1123_DATE_TIME))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    @Benchmark
+    public ClientRequest current() {
+        return filter.decorate(request);
+    }
+
+    @Benchmark
+    public String legacyInteractionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String currentInteractionId() {
+        return FapiHeaders.newInteractionId();
+    }
+
+    @Benchmark
+    public String legacyAuthDate() {
+        return ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+    }
+
+    @Benchmark
+    public String currentAuthDate() {
+        return FapiHeaders.authDate();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClientFilterHeadersBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
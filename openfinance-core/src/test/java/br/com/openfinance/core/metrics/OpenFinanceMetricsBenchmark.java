@@ -0,0 +1,101 @@
+package br.com.openfinance.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=br.com.openfinance.core.metrics.OpenFinanceMetricsBenchmark
+// bytes/op vêm do profiler de GC (gc.alloc.rate.norm)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class OpenFinanceMetricsBenchmark {
+
+    private static final String[] INSTITUTIONS = {"itau", "bradesco", "santander", "caixa", "bb", "nubank", "inter", "c6"};
+    private static final String[] ENDPOINTS = {"accounts", "balances", "overdraft-limits"};
+    private static final int[] STATUSES = {200, 200, 200, 200, 404, 429, 500};
+
+    private MeterRegistry registry;
+    private OpenFinanceMetrics metrics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        metrics = new OpenFinanceMetrics(registry);
+    }
+
+    // Caminho antigo: builder + register a cada chamada, com percentis calculados no cliente
+    @Benchmark
+    public void legacyRecordApiCall() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Timer.builder("openfinance.api.call.legacy")
+                .tag("institution", INSTITUTIONS[random.nextInt(INSTITUTIONS.length)])
+                .tag("endpoint", ENDPOINTS[random.nextInt(ENDPOINTS.length)])
+                .tag("status", String.valueOf(STATUSES[random.nextInt(STATUSES.length)]))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(random.nextLong(1, 2000), TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    public void recordApiCall() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        metrics.recordApiCall(
+                INSTITUTIONS[random.nextInt(INSTITUTIONS.length)],
+                ENDPOINTS[random.nextInt(ENDPOINTS.length)],
+                STATUSES[random.nextInt(STATUSES.length)],
+                random.nextLong(1, 2000));
+    }
+
+    @Benchmark
+    public void legacyIncrementErrors() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Counter.builder("openfinance.errors.legacy")
+                .tag("type", ENDPOINTS[random.nextInt(ENDPOINTS.length)])
+                .tag("error", "TimeoutException")
+                .register(registry)
+                .increment();
+    }
+
+    @Benchmark
+    public void incrementErrors() {
+        metrics.incrementErrors(ENDPOINTS[ThreadLocalRandom.current().nextInt(ENDPOINTS.length)], "TimeoutException");
+    }
+
+    @Benchmark
+    public void incrementProcessedAccounts() {
+        metrics.incrementProcessedAccounts("updated");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OpenFinanceMetricsBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,207 @@
+package br.com.openfinance.core.processor;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairSchedulerTest {
+
+    // Tarefas que só terminam quando o teste manda, para observar o estado entre um passo e outro
+    private final Map<String, Sinks.One<String>> running = new ConcurrentHashMap<>();
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @Test
+    void globalAndPerKeyBoundsHold() {
+        FairScheduler<String> scheduler = new FairScheduler<>(4, key -> 2);
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (String key : List.of("a", "b", "c")) {
+            for (int i = 0; i < 3; i++) {
+                subscriptions.add(scheduler.schedule(key, controlled(key + i)).subscribe());
+            }
+        }
+
+        assertThat(scheduler.getInFlight()).isEqualTo(4);
+        assertThat(scheduler.getQueued()).isEqualTo(5);
+        assertThat(scheduler.getInFlight("a")).isLessThanOrEqualTo(2);
+        assertThat(scheduler.getInFlight("b")).isLessThanOrEqualTo(2);
+        assertThat(scheduler.getInFlight("c")).isLessThanOrEqualTo(2);
+
+        while (!running.isEmpty()) {
+            complete(running.keySet().iterator().next());
+            assertThat(scheduler.getInFlight()).isLessThanOrEqualTo(4);
+            for (String key : List.of("a", "b", "c")) {
+                assertThat(scheduler.getInFlight(key)).isLessThanOrEqualTo(2);
+            }
+        }
+
+        assertThat(started).hasSize(9);
+        assertThat(scheduler.getInFlight()).isZero();
+        assertThat(scheduler.getQueued()).isZero();
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void drawsRoundRobinAcrossKeys() {
+        FairScheduler<String> scheduler = new FairScheduler<>(1, key -> Integer.MAX_VALUE);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        scheduler.schedule("x", controlled("blocker")).subscribe();
+        for (String name : List.of("a1", "a2", "a3", "b1", "b2", "c1")) {
+            scheduler.schedule(name.substring(0, 1), recording(order, name)).subscribe();
+        }
+        complete("blocker");
+
+        assertThat(order).containsExactly("a1", "b1", "c1", "a2", "b2", "a3");
+    }
+
+    @Test
+    void keyWithoutHeadroomGivesItsSlotToTheNextKey() {
+        FairScheduler<String> scheduler = new FairScheduler<>(3, key -> key.equals("a") ? 1 : 3);
+        for (int i = 0; i < 3; i++) {
+            scheduler.schedule("a", controlled("a" + i)).subscribe();
+        }
+        scheduler.schedule("b", controlled("b0")).subscribe();
+        scheduler.schedule("b", controlled("b1")).subscribe();
+
+        assertThat(started).containsExactlyInAnyOrder("a0", "b0", "b1");
+        assertThat(scheduler.getQueued()).isEqualTo(2);
+    }
+
+    @Test
+    void cancellingQueuedTaskFreesItsPlaceWithoutRunningIt() {
+        FairScheduler<String> scheduler = new FairScheduler<>(1, key -> Integer.MAX_VALUE);
+        scheduler.schedule("a", controlled("blocker")).subscribe();
+        Disposable queued = scheduler.schedule("b", controlled("cancelled")).subscribe();
+        scheduler.schedule("c", controlled("next")).subscribe();
+
+        queued.dispose();
+        assertThat(scheduler.getQueued()).isEqualTo(1);
+
+        complete("blocker");
+        assertThat(started).containsExactly("blocker", "next");
+        complete("next");
+        assertThat(scheduler.getInFlight()).isZero();
+        assertThat(scheduler.getQueued()).isZero();
+    }
+
+    @Test
+    void cancellingRunningTaskReleasesItsSlot() {
+        FairScheduler<String> scheduler = new FairScheduler<>(1, key -> Integer.MAX_VALUE);
+        Disposable running = scheduler.schedule("a", controlled("running")).subscribe();
+        scheduler.schedule("a", controlled("next")).subscribe();
+
+        running.dispose();
+
+        assertThat(started).containsExactly("running", "next");
+        assertThat(scheduler.getInFlight()).isEqualTo(1);
+        complete("next");
+        assertThat(scheduler.getInFlight()).isZero();
+    }
+
+    @Test
+    void cancellationsRacingDispatchDoNotLeakSlots() {
+        FairScheduler<Integer> scheduler = new FairScheduler<>(8, key -> 2);
+
+        // Timeouts curtos cancelam tarefas na fila, no meio da seleção e já em execução
+        Flux.range(0, 5_000)
+                .flatMap(i -> scheduler.schedule(i % 7, () -> Mono.delay(
+                                        Duration.ofNanos(ThreadLocalRandom.current().nextLong(200_000))))
+                                .timeout(Duration.ofNanos(ThreadLocalRandom.current().nextLong(300_000)))
+                                .onErrorResume(error -> Mono.empty()),
+                        256)
+                .blockLast(Duration.ofSeconds(30));
+
+        assertThat(scheduler.getInFlight()).isZero();
+        assertThat(scheduler.getQueued()).isZero();
+    }
+
+    @Test
+    void synchronousTasksDoNotRecurse() {
+        FairScheduler<String> scheduler = new FairScheduler<>(1, key -> Integer.MAX_VALUE);
+
+        // Com drain recursivo, cada tarefa que completa na assinatura empilharia a próxima
+        StepVerifier.create(Flux.range(0, 100_000)
+                        .flatMap(i -> scheduler.schedule("k" + (i % 3), () -> Mono.just(i)), 1_000)
+                        .count())
+                .expectNext(100_000L)
+                .verifyComplete();
+
+        assertThat(scheduler.getInFlight()).isZero();
+    }
+
+    @Test
+    void priorityLaneIsServedBeforeBulk() {
+        FairScheduler<String> scheduler = new FairScheduler<>(1, key -> Integer.MAX_VALUE);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        scheduler.schedule("x", controlled("blocker")).subscribe();
+        scheduler.schedule("a", Lane.BULK, recording(order, "bulk1")).subscribe();
+        scheduler.schedule("b", Lane.BULK, recording(order, "bulk2")).subscribe();
+        scheduler.schedule("a", Lane.PRIORITY, recording(order, "priority")).subscribe();
+        complete("blocker");
+
+        assertThat(order).containsExactly("priority", "bulk1", "bulk2");
+    }
+
+    @Test
+    void bulkLaneLeavesReservedShareForPriority() {
+        FairScheduler<String> scheduler = new FairScheduler<>(4, 0.5, key -> 4);
+        for (int i = 0; i < 10; i++) {
+            scheduler.schedule("a", Lane.BULK, controlled("bulk" + i)).subscribe();
+        }
+        assertThat(scheduler.getInFlight()).isEqualTo(2);
+
+        scheduler.schedule("a", Lane.PRIORITY, controlled("priority0")).subscribe();
+        scheduler.schedule("a", Lane.PRIORITY, controlled("priority1")).subscribe();
+
+        assertThat(started).contains("priority0", "priority1");
+        assertThat(scheduler.getInFlight()).isEqualTo(4);
+        assertThat(scheduler.getQueued(Lane.BULK)).isEqualTo(8);
+    }
+
+    @Test
+    void resultAndErrorReachTheSubscriber() {
+        FairScheduler<String> scheduler = new FairScheduler<>(2, key -> 1);
+
+        StepVerifier.create(scheduler.schedule("a", () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+        StepVerifier.create(scheduler.schedule("a", () -> Mono.error(new IllegalStateException("boom"))))
+                .verifyErrorMessage("boom");
+        assertThat(scheduler.getInFlight()).isZero();
+    }
+
+    private Supplier<Mono<String>> controlled(String name) {
+        return () -> {
+            Sinks.One<String> sink = Sinks.one();
+            running.put(name, sink);
+            started.add(name);
+            return sink.asMono();
+        };
+    }
+
+    private static Supplier<Mono<String>> recording(List<String> order, String name) {
+        return () -> {
+            order.add(name);
+            return Mono.just(name);
+        };
+    }
+
+    private void complete(String name) {
+        running.remove(name).tryEmitValue(name);
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.openfinance.core.processor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Mesma carga nos dois motores: N itens com uma espera simulada de I/O e o mesmo limite de concorrência.
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=br.com.openfinance.core.processor.ProcessorEngineBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ProcessorEngineBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    @Param({"2000"})
+    private int items;
+
+    @Param({"200"})
+    private int concurrency;
+
+    // 0 = só overhead do motor; >0 = chamada de I/O simulada
+    @Param({"0", "5"})
+    private int latencyMs;
+
+    private List<Integer> input;
+    private ParallelProcessor reactive;
+    private StructuredProcessor structured;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        input = IntStream.range(0, items).boxed().toList();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        reactive = new ParallelProcessor("reactive", concurrency, TIMEOUT, registry);
+        structured = new StructuredProcessor("structured", concurrency, registry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        structured.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> reactor() {
+        return reactive.process(Flux.fromIterable(input), item -> latencyMs == 0
+                        ? Mono.just(work(item))
+                        : Mono.delay(Duration.ofMillis(latencyMs)).thenReturn(item).map(ProcessorEngineBenchmark::work))
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Integer> structuredConcurrency() throws InterruptedException {
+        return structured.invokeAll(input, item -> {
+                    if (latencyMs > 0) {
+                        sleep(latencyMs);
+                    }
+                    return work(item);
+                }, StructuredProcessor.FailurePolicy.COLLECT_ALL, TIMEOUT)
+                .results();
+    }
+
+    private static int work(int item) {
+        return Integer.rotateLeft(item * 0x9E3779B9, 7);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProcessorEngineBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}